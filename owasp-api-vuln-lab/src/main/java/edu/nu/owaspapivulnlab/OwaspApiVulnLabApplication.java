@@ -2,8 +2,10 @@ package edu.nu.owaspapivulnlab;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OwaspApiVulnLabApplication {
     public static void main(String[] args) {
         SpringApplication.run(OwaspApiVulnLabApplication.class, args);
@@ -0,0 +1,120 @@
+package edu.nu.owaspapivulnlab.config;
+
+import io.github.bucket4j.Bucket;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Capacity-capped bucket map split into independently locked LRU stripes. Buckets idle longer than
+// idleTimeout are dropped lazily on access, so the store stays bounded without a sweeper thread.
+public class BucketStore {
+
+    // Idle entries reclaimed from the cold end of a stripe per access
+    private static final int SWEEP_PER_ACCESS = 2;
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long idleNanos;
+    private final LongSupplier nanoClock;
+    private final LongAdder evictions = new LongAdder();
+
+    public BucketStore(int maxBuckets, int stripes, Duration idleTimeout) {
+        this(maxBuckets, stripes, idleTimeout, System::nanoTime);
+    }
+
+    public BucketStore(int maxBuckets, int stripes, Duration idleTimeout, LongSupplier nanoClock) {
+        int n = 1;
+        while (n < stripes) {
+            n <<= 1;
+        }
+        int perStripe = Math.max(1, maxBuckets / n);
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+        this.mask = n - 1;
+        this.idleNanos = idleTimeout.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public Bucket get(String key, Supplier<Bucket> factory) {
+        int h = key.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & mask];
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            stripe.sweep(now);
+            Entry entry = stripe.map.get(key);
+            if (entry == null) {
+                entry = new Entry(factory.get());
+                stripe.map.put(key, entry);
+            }
+            entry.lastAccess = now;
+            return entry.bucket;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.map.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private static final class Entry {
+        final Bucket bucket;
+        long lastAccess;
+
+        Entry(Bucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, Entry> map;
+
+        Stripe(int capacity) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        // Access order keeps the least recently used entries first, so idle ones sit at the head
+        void sweep(long now) {
+            Iterator<Entry> it = map.values().iterator();
+            for (int i = 0; i < SWEEP_PER_ACCESS && it.hasNext(); i++) {
+                if (now - it.next().lastAccess < idleNanos) {
+                    return;
+                }
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
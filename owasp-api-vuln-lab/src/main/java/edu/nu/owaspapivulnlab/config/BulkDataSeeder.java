@@ -0,0 +1,248 @@
+package edu.nu.owaspapivulnlab.config;
+
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import edu.nu.owaspapivulnlab.service.UserSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Synthetic data for load and capacity tests: N users with M accounts each, generated from a fixed
+// seed so every run produces the same rows. The id range is reserved from the sequences up front, safely
+// alongside live traffic, and split into slices; each worker generates its slice and writes it over its
+// own connection with batched JDBC inserts. Every user gets the same BCrypt hash of app.seed.bulk.password. Accounts go
+// to their owner's shard, with ids reserved from that shard's sequence.
+@Component
+@Order(10) // after DataSeeder's demo users
+@ConditionalOnProperty(name = "app.seed.bulk.enabled", havingValue = "true")
+public class BulkDataSeeder implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkDataSeeder.class);
+
+    private static final String[] FIRST = {"ali", "sara", "omar", "zara", "hamza", "ayesha", "bilal", "fatima",
+            "usman", "hina", "john", "maria", "wei", "yuki", "ivan", "lena", "noah", "emma", "liam", "olivia"};
+    private static final String[] LAST = {"khan", "ahmed", "malik", "raza", "qureshi", "smith", "garcia", "chen",
+            "tanaka", "petrov", "mueller", "rossi", "silva", "kim", "nguyen", "brown", "jones", "lee", "haddad", "ali"};
+    private static final String[] DOMAINS = {"lab.local", "mail.test", "corp.example", "bank.example"};
+    // Sequences hand Hibernate blocks of this size (see the @SequenceGenerator allocationSize)
+    private static final int ALLOCATION = 50;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final AccountShards shards;
+    private final AccountCache accountCache;
+    private final PasswordHashingService passwords;
+    private final UserSearchIndex searchIndex;
+    private final SeedRunner seeding;
+    private final long users;
+    private final int accountsPerUser;
+    private final long seed;
+    private final int threads;
+    private final int batchSize;
+    private final String password;
+
+    public BulkDataSeeder(DataSource dataSource, AccountShards shards, AccountCache accountCache,
+                          PasswordHashingService passwords,
+                          UserSearchIndex searchIndex, SeedRunner seeding,
+                          @Value("${app.seed.bulk.users:100000}") long users,
+                          @Value("${app.seed.bulk.accounts-per-user:2}") int accountsPerUser,
+                          @Value("${app.seed.bulk.seed:42}") long seed,
+                          @Value("${app.seed.bulk.threads:0}") int threads,
+                          @Value("${app.seed.bulk.batch-size:1000}") int batchSize,
+                          @Value("${app.seed.bulk.password:seed-password}") String password) {
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.shards = shards;
+        this.accountCache = accountCache;
+        this.passwords = passwords;
+        this.searchIndex = searchIndex;
+        this.seeding = seeding;
+        this.users = users;
+        this.accountsPerUser = accountsPerUser;
+        this.seed = seed;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize;
+        this.password = password;
+    }
+
+    public record Report(long users, long accounts, long millis) {
+        public long rows() {
+            return users + accounts;
+        }
+
+        public double rowsPerSecond() {
+            return millis == 0 ? rows() : rows() * 1000.0 / millis;
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        seeding.run("BulkDataSeeder", () -> {
+            Long existing = jdbc.queryForObject("select count(*) from app_user", Long.class);
+            if (existing != null && existing >= users) {
+                log.info("Bulk seed skipped: {} users already present", existing);
+                return;
+            }
+            seed();
+            if (seeding.isAsync()) {
+                // The index loaded at ApplicationReadyEvent, most likely before these rows existed
+                searchIndex.load();
+            }
+        });
+    }
+
+    public Report seed() throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        String hash = passwords.hash(password);
+        long firstUser = reserve("app_user_seq", users);
+        // Every shard reserves room for all accounts; only its owners' share of the block is used
+        long[] firstAccount = new long[shards.count()];
+        for (int shard = 0; shard < firstAccount.length; shard++) {
+            firstAccount[shard] = shards.onShard(shard, () -> reserve("account_seq", users * accountsPerUser));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bulk-seed");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> slices = new ArrayList<>();
+            long sliceSize = (users + threads - 1) / threads;
+            for (long from = 0; from < users; from += sliceSize) {
+                long to = Math.min(users, from + sliceSize);
+                long sliceFrom = from;
+                slices.add(pool.submit(() -> {
+                    writeSlice(sliceFrom, to, firstUser, firstAccount, hash);
+                    return null;
+                }));
+            }
+            for (Future<?> slice : slices) {
+                slice.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        // Written with plain JDBC, so owner lists cached meanwhile know nothing of these accounts
+        accountCache.accountsAdded();
+        Report report = new Report(users, users * accountsPerUser, (System.nanoTime() - start) / 1_000_000);
+        log.info("Bulk seed: {} users and {} accounts in {} ms ({} rows/s, {} threads)", report.users(),
+                report.accounts(), report.millis(), Math.round(report.rowsPerSecond()), threads);
+        return report;
+    }
+
+    // Reserves a block of count ids without racing Hibernate, which may be allocating from the same
+    // sequence while this runs (app.seed.async lets traffic in first). While the increment is
+    // count + ALLOCATION, nobody else can be handed a value between the one taken here and the next:
+    // this block is the first count ids of that gap, and Hibernate's pooled optimizer takes the
+    // ALLOCATION ids below the next value it reads, i.e. the rest of the gap.
+    private long reserve(String sequence, long count) {
+        jdbc.execute("alter sequence " + sequence + " increment by " + (count + ALLOCATION));
+        try {
+            return jdbc.queryForObject("select next value for " + sequence, Long.class);
+        } finally {
+            jdbc.execute("alter sequence " + sequence + " increment by " + ALLOCATION);
+        }
+    }
+
+    private void writeSlice(long from, long to, long firstUser, long[] firstAccount, String hash) throws SQLException {
+        Connection[] connections = new Connection[shards.count()];
+        try {
+            PreparedStatement[] accountInserts = new PreparedStatement[connections.length];
+            for (int shard = 0; shard < connections.length; shard++) {
+                connections[shard] = shards.onShard(shard, () -> DataSourceUtils.getConnection(dataSource));
+                connections[shard].setAutoCommit(false);
+                accountInserts[shard] = connections[shard].prepareStatement(
+                        "insert into account (id, owner_user_id, iban, balance, version) values (?, ?, ?, ?, 0)");
+            }
+            Connection connection = connections[0];
+            PreparedStatement userInsert = connection.prepareStatement(
+                    "insert into app_user (id, username, password, role, is_admin, email, version) values (?, ?, ?, ?, ?, ?, 0)");
+            int pending = 0;
+            StringBuilder text = new StringBuilder(64);
+            for (long n = from; n < to; n++) {
+                // One generator per user, derived from the seed and the user's position: rows do not
+                // depend on how the range was split across threads
+                SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + n);
+                long userId = firstUser + n;
+                text.setLength(0);
+                text.append(FIRST[random.nextInt(FIRST.length)]).append('.')
+                        .append(LAST[random.nextInt(LAST.length)]).append(n);
+                String username = text.toString();
+                text.append('@').append(DOMAINS[random.nextInt(DOMAINS.length)]);
+                boolean admin = random.nextInt(1000) == 0;
+
+                userInsert.setLong(1, userId);
+                userInsert.setString(2, username);
+                userInsert.setString(3, hash);
+                userInsert.setString(4, admin ? "ADMIN" : "USER");
+                userInsert.setBoolean(5, admin);
+                userInsert.setString(6, text.toString());
+                userInsert.addBatch();
+
+                int shard = shards.shardOfOwner(userId);
+                PreparedStatement accountInsert = accountInserts[shard];
+                for (int a = 0; a < accountsPerUser; a++) {
+                    long accountId = firstAccount[shard] + n * accountsPerUser + a;
+                    accountInsert.setLong(1, accountId);
+                    accountInsert.setLong(2, userId);
+                    accountInsert.setString(3, iban(accountId, text));
+                    accountInsert.setDouble(4, random.nextInt(1_000_000) / 100.0);
+                    accountInsert.addBatch();
+                }
+                if (++pending == batchSize) {
+                    flush(userInsert, accountInserts, connections);
+                    pending = 0;
+                }
+            }
+            flush(userInsert, accountInserts, connections);
+        } finally {
+            for (Connection connection : connections) {
+                if (connection != null) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    private static void flush(PreparedStatement userInsert, PreparedStatement[] accountInserts,
+                              Connection[] connections) throws SQLException {
+        userInsert.executeBatch();
+        for (PreparedStatement accountInsert : accountInserts) {
+            accountInsert.executeBatch();
+        }
+        for (Connection connection : connections) {
+            connection.commit();
+        }
+    }
+
+    private static String iban(long accountId, StringBuilder text) {
+        text.setLength(0);
+        String digits = Long.toString(accountId);
+        text.append("PK00SEED");
+        for (int i = digits.length(); i < 16; i++) {
+            text.append('0');
+        }
+        return text.append(digits).toString();
+    }
+}
@@ -3,22 +3,36 @@ package edu.nu.owaspapivulnlab.config;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import edu.nu.owaspapivulnlab.model.Account;
 import edu.nu.owaspapivulnlab.model.AppUser;
 import edu.nu.owaspapivulnlab.repo.AccountRepository;
 import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.UserSearchIndex;
 
 @Configuration
 public class DataSeeder {
     @Bean
-    CommandLineRunner seed(AppUserRepository users, AccountRepository accounts) {
-        return args -> {
+    @Order(0) // demo users first, before any bulk data
+    CommandLineRunner seed(AppUserRepository users, AccountRepository accounts, AccountShards shards,
+                           AccountCache accountCache, UserSearchIndex searchIndex, SeedRunner seeding) {
+        return args -> seeding.run("DataSeeder", () -> {
             if (users.count() == 0) {
                 AppUser u1 = users.save(AppUser.builder().username("alice").password("alice123").email("alice@cydea.tech").role("USER").isAdmin(false).build());
                 AppUser u2 = users.save(AppUser.builder().username("bob").password("bob123").email("bob@cydea.tech").role("ADMIN").isAdmin(true).build());
-                accounts.save(Account.builder().ownerUserId(u1.getId()).iban("PK00-ALICE").balance(1000.0).build());
-                accounts.save(Account.builder().ownerUserId(u2.getId()).iban("PK00-BOB").balance(5000.0).build());
+                // Each account on its owner's shard
+                shards.onOwner(u1.getId(), () -> accounts.save(
+                        Account.builder().ownerUserId(u1.getId()).iban("PK00-ALICE").balance(1000.0).build()));
+                shards.onOwner(u2.getId(), () -> accounts.save(
+                        Account.builder().ownerUserId(u2.getId()).iban("PK00-BOB").balance(5000.0).build()));
+                // Seeding may finish after the index has loaded and /mine has been asked (app.seed.async)
+                searchIndex.add(u1);
+                searchIndex.add(u2);
+                accountCache.accountsAdded(u1.getId());
+                accountCache.accountsAdded(u2.getId());
             }
-        };
+        });
     }
 }
@@ -0,0 +1,89 @@
+package edu.nu.owaspapivulnlab.config;
+
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Housekeeping for the file-backed stores of the 'durable' profile. Each pass checkpoints (writes
+// every committed change to the file) and samples the MVStore's own counters for /metrics, on every
+// shard's database in turn; the gauges carry a shard label. H2 has
+// no SQL for online compaction: chunks below AUTO_COMPACT_FILL_RATE are rewritten by the store's
+// background writer, and the file is compacted for up to MAX_COMPACT_TIME when the database closes.
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "app.durable.enabled", havingValue = "true")
+public class H2StoreMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(H2StoreMaintenance.class);
+
+    private final JdbcTemplate jdbc;
+    private final AccountShards shards;
+
+    // Last sample of INFORMATION_SCHEMA.SETTINGS per shard, replaced whole by each pass
+    private volatile List<Map<String, String>> info;
+
+    public H2StoreMaintenance(JdbcTemplate jdbc, AccountShards shards, MetricsRegistry registry) {
+        this.jdbc = jdbc;
+        this.shards = shards;
+        this.info = Collections.nCopies(shards.count(), Map.of());
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int s = shard;
+            String label = String.valueOf(shard);
+            registry.gauge("h2_store_file_bytes", "Size of the database file", () -> value(s, "info.FILE_SIZE"),
+                    "shard", label);
+            registry.gauge("h2_store_fill_rate", "Live share of the file's pages, percent",
+                    () -> value(s, "info.FILL_RATE"), "shard", label);
+            registry.gauge("h2_store_chunks_fill_rate", "Live share of the file's chunks, percent",
+                    () -> value(s, "info.CHUNKS_FILL_RATE"), "shard", label);
+            registry.gauge("h2_cache_max_megabytes", "Page cache limit", () -> value(s, "info.CACHE_MAX_SIZE"),
+                    "shard", label);
+            registry.gauge("h2_cache_megabytes", "Page cache in use", () -> value(s, "info.CACHE_SIZE"),
+                    "shard", label);
+            registry.gauge("h2_cache_hit_ratio", "Page cache hits, percent", () -> value(s, "info.CACHE_HIT_RATIO"),
+                    "shard", label);
+            registry.gauge("h2_file_reads", "Pages read from the file", () -> value(s, "info.FILE_READ"),
+                    "shard", label);
+            registry.gauge("h2_file_writes", "Pages written to the file", () -> value(s, "info.FILE_WRITE"),
+                    "shard", label);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.durable.maintenance-interval-ms:60000}", initialDelay = 0)
+    public void maintain() {
+        // jdbc follows the shard bound to the calling thread, so unbound it would only reach shard 0
+        info = List.copyOf(shards.fanOut(this::maintain));
+    }
+
+    private Map<String, String> maintain(int shard) {
+        long start = System.nanoTime();
+        jdbc.execute("CHECKPOINT");
+        Map<String, String> sample = new HashMap<>();
+        jdbc.query("select setting_name, setting_value from information_schema.settings where setting_name like 'info.%'",
+                rs -> {
+                    sample.put(rs.getString(1), rs.getString(2));
+                });
+        log.debug("Checkpointed shard {}: {} bytes at {}% fill in {} ms", shard, sample.get("info.FILE_SIZE"),
+                sample.get("info.CHUNKS_FILL_RATE"), (System.nanoTime() - start) / 1_000_000);
+        return sample;
+    }
+
+    public Map<String, String> info(int shard) {
+        return info.get(shard);
+    }
+
+    private double value(int shard, String name) {
+        String value = info.get(shard).get(name);
+        return value == null ? Double.NaN : Double.parseDouble(value);
+    }
+}
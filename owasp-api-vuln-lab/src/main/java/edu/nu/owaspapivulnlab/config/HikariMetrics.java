@@ -0,0 +1,68 @@
+package edu.nu.owaspapivulnlab.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Connection pool metrics: how long callers wait for a connection, how long they hold it, how long
+// new physical connections take, and acquisition timeouts, plus the pool's occupancy as gauges.
+// Hikari creates the tracker when the pool starts, after the registry exists. Every series carries the
+// pool's name, since each account shard has a pool of its own.
+public class HikariMetrics implements MetricsTrackerFactory {
+
+    private final ObjectProvider<MetricsRegistry> registry;
+
+    public HikariMetrics(ObjectProvider<MetricsRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats stats) {
+        MetricsRegistry metrics = registry.getObject();
+        metrics.gauge("hikari_connections_active", "Connections in use", stats::getActiveConnections,
+                "pool", poolName);
+        metrics.gauge("hikari_connections_idle", "Connections idle in the pool", stats::getIdleConnections,
+                "pool", poolName);
+        metrics.gauge("hikari_connections_total", "Connections open", stats::getTotalConnections,
+                "pool", poolName);
+        metrics.gauge("hikari_connections_max", "Pool size limit", stats::getMaxConnections,
+                "pool", poolName);
+        metrics.gauge("hikari_threads_pending", "Threads waiting for a connection", stats::getPendingThreads,
+                "pool", poolName);
+        return new Tracker(
+                metrics.histogram("hikari_connection_acquire_seconds", "Wait for a pooled connection", "pool", poolName),
+                metrics.histogram("hikari_connection_usage_seconds", "Time a connection was held", "pool", poolName),
+                metrics.histogram("hikari_connection_create_seconds", "Time to open a physical connection", "pool", poolName),
+                metrics.counter("hikari_connection_timeouts_total", "Acquisitions that timed out", "pool", poolName));
+    }
+
+    private record Tracker(LatencyHistogram acquire, LatencyHistogram usage, LatencyHistogram create,
+                           LongAdder timeouts) implements IMetricsTracker {
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquire.record(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            create.record(TimeUnit.MILLISECONDS.toNanos(connectionCreatedMillis));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package edu.nu.owaspapivulnlab.config;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Bucket4j proxy manager that keeps bucket state in a shared table, locked with SELECT ... FOR UPDATE.
+// Written against H2 but uses only portable SQL apart from the duplicate-key SQLState check.
+public class JdbcProxyManager extends AbstractSelectForUpdateBasedProxyManager<String> {
+
+    private static final String DUPLICATE_KEY_STATE = "23505";
+
+    private final DataSource dataSource;
+    private final String selectForUpdate;
+    private final String insertEmpty;
+    private final String update;
+    private final String delete;
+
+    public JdbcProxyManager(DataSource dataSource, String table) {
+        super(ClientSideConfig.getDefault());
+        this.dataSource = dataSource;
+        this.selectForUpdate = "SELECT state FROM " + table + " WHERE id = ? FOR UPDATE";
+        this.insertEmpty = "INSERT INTO " + table + " (id, state) VALUES (?, NULL)";
+        this.update = "UPDATE " + table + " SET state = ? WHERE id = ?";
+        this.delete = "DELETE FROM " + table + " WHERE id = ?";
+        createTable(table);
+    }
+
+    @Override
+    protected SelectForUpdateBasedTransaction allocateTransaction(String key) {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+        return new SelectForUpdateBasedTransaction() {
+            @Override
+            public void begin() {
+                run(() -> connection.setAutoCommit(false));
+            }
+
+            @Override
+            public void rollback() {
+                run(connection::rollback);
+            }
+
+            @Override
+            public void commit() {
+                run(connection::commit);
+            }
+
+            @Override
+            public LockAndGetResult tryLockAndGet() {
+                try (PreparedStatement select = connection.prepareStatement(selectForUpdate)) {
+                    select.setString(1, key);
+                    try (ResultSet rs = select.executeQuery()) {
+                        return rs.next() ? LockAndGetResult.locked(rs.getBytes(1)) : LockAndGetResult.notLocked();
+                    }
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public boolean tryInsertEmptyData() {
+                try (PreparedStatement insert = connection.prepareStatement(insertEmpty)) {
+                    insert.setString(1, key);
+                    return insert.executeUpdate() > 0;
+                } catch (SQLException e) {
+                    if (DUPLICATE_KEY_STATE.equals(e.getSQLState())) {
+                        return false; // another node created the row first
+                    }
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void update(byte[] data, RemoteBucketState newState) {
+                try (PreparedStatement statement = connection.prepareStatement(update)) {
+                    statement.setBytes(1, data);
+                    statement.setString(2, key);
+                    statement.executeUpdate();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void release() {
+                run(connection::close);
+            }
+        };
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(delete)) {
+            statement.setString(1, key);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
+    private void createTable(String table) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table
+                    + " (id VARCHAR(255) PRIMARY KEY, state VARBINARY(1024))");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create rate-limit table " + table, e);
+        }
+    }
+
+    private static void run(SqlAction action) {
+        try {
+            action.run();
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+}
@@ -0,0 +1,87 @@
+package edu.nu.owaspapivulnlab.config;
+
+import edu.nu.owaspapivulnlab.dto.AuthenticatedUser;
+import edu.nu.owaspapivulnlab.service.JwtService;
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+import edu.nu.owaspapivulnlab.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+// Not a @Component: it is added to the security chain only, so the servlet container must not register it too
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtService jwt;
+    private final TokenRevocationService revocations;
+    private final LatencyHistogram verifyTime;
+    private final LatencyHistogram revocationTime;
+
+    public JwtAuthenticationFilter(JwtService jwt, TokenRevocationService revocations, LatencyHistogram verifyTime,
+                                   LatencyHistogram revocationTime) {
+        this.jwt = jwt;
+        this.revocations = revocations;
+        this.verifyTime = verifyTime;
+        this.revocationTime = revocationTime;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            long start = System.nanoTime();
+            Claims claims;
+            try {
+                claims = jwt.verify(header.substring(BEARER.length()).trim());
+            } catch (JwtException | IllegalArgumentException e) {
+                claims = null;
+            }
+            verifyTime.recordSince(start);
+            if (claims != null && !revoked(claims)) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(new UsernamePasswordAuthenticationToken(
+                        new AuthenticatedUser(userId(claims), claims.getSubject()), null, authorities(claims)));
+                SecurityContextHolder.setContext(context);
+            } else {
+                // Invalid, expired or revoked token: continue unauthenticated and let the authorization rules decide
+                SecurityContextHolder.clearContext();
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Checked on every request rather than in verify, whose results are cached
+    private boolean revoked(Claims claims) {
+        long start = System.nanoTime();
+        boolean revoked = revocations.isRevoked(claims.getId());
+        revocationTime.recordSince(start);
+        return revoked;
+    }
+
+    // Absent from tokens issued before the claim was added
+    private static Long userId(Claims claims) {
+        return claims.get("uid") instanceof Number uid ? uid.longValue() : null;
+    }
+
+    private static List<SimpleGrantedAuthority> authorities(Claims claims) {
+        Object role = claims.get("role");
+        return role == null
+                ? Collections.emptyList()
+                : List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+}
@@ -0,0 +1,149 @@
+package edu.nu.owaspapivulnlab.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.AuditLog;
+import edu.nu.owaspapivulnlab.service.JwtService;
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import edu.nu.owaspapivulnlab.service.PrincipalResolver;
+import edu.nu.owaspapivulnlab.service.TokenRevocationService;
+import jakarta.persistence.EntityManagerFactory;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Configuration
+public class MetricsConfig {
+
+    // Outermost of our filters, so rate-limited requests are timed as well
+    @Bean
+    public FilterRegistrationBean<RequestMetricsFilter> requestMetricsFilterRegistration(MetricsRegistry registry) {
+        FilterRegistrationBean<RequestMetricsFilter> registration =
+                new FilterRegistrationBean<>(new RequestMetricsFilter(registry));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 20);
+        return registration;
+    }
+
+    // Adds a timing advice to every Spring Data repository proxy, one histogram per repository method.
+    // Static with a lazy provider so that registering it does not initialize the registry early.
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MetricsRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, info) -> proxy.addAdvice(timing(registry, info.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Hikari only accepts a metrics tracker before the pool starts, i.e. before the first getConnection
+    @Bean
+    public static BeanPostProcessor hikariMetricsPostProcessor(ObjectProvider<MetricsRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.setMetricsTrackerFactory(new HikariMetrics(registry));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Enabled by hibernate.generate_statistics; counters are cumulative since startup
+    @Bean
+    public Statistics hibernateStatistics(EntityManagerFactory entityManagerFactory) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Bean
+    @Lazy(false) // registers the gauges as a side effect: nothing would ever ask for it under lazy init
+    public SmartInitializingSingleton metricsGauges(MetricsRegistry registry, JwtService jwt, RateLimiter rateLimiter,
+                                                    AccountCache accountCache, PasswordHashingService passwords,
+                                                    Statistics hibernate, TokenRevocationService revocations,
+                                                    AuditLog audit, PrincipalResolver principals) {
+        return () -> {
+            registry.gauge("jwt_cache_hits", "Verified-token cache hits", () -> jwt.cacheStats().hitCount());
+            registry.gauge("jwt_cache_misses", "Verified-token cache misses", () -> jwt.cacheStats().missCount());
+            registry.gauge("jwt_cache_size", "Verified tokens currently cached", jwt::cacheSize);
+            registry.gauge("jwt_revocation_lookups", "Denylist checks", revocations::lookups);
+            registry.gauge("jwt_revocation_filter_hits", "Denylist checks the Bloom filter passed to the table",
+                    revocations::filterHits);
+            registry.gauge("jwt_revocation_false_positives", "Filter hits the table did not confirm",
+                    revocations::falsePositives);
+            registry.gauge("jwt_revocation_filter_fill_ratio", "Share of Bloom filter bits set",
+                    revocations::filterFillRatio);
+            registry.gauge("ratelimit_buckets", "Rate-limit buckets held in memory", rateLimiter::storeSize);
+            registry.gauge("ratelimit_bucket_evictions", "Rate-limit buckets evicted", rateLimiter::evictions);
+            registry.counters("ratelimit_rejections_total", "Requests rejected with 429", "route",
+                    rateLimiter::rejectionsByRoute);
+            registry.gauge("account_balance_cache_hit_ratio", "Balance cache hit ratio",
+                    () -> accountCache.balanceStats().hitRate());
+            registry.gauge("account_owner_cache_hit_ratio", "Owner-list cache hit ratio",
+                    () -> accountCache.ownerStats().hitRate());
+            registry.gauge("principal_cache_hit_ratio", "Username-to-id cache hit ratio (tokens without uid)",
+                    () -> principals.stats().hitRate());
+            registry.gauge("password_hash_queue_depth", "Hashing jobs waiting for a thread", passwords::queueDepth);
+            registry.gauge("password_hash_active", "Hashing jobs running", passwords::activeHashes);
+            registry.gauge("password_hash_rejections", "Hashing jobs rejected with 503", passwords::rejections);
+            registry.gauge("password_hash_cost", "Calibrated BCrypt cost", passwords::cost);
+            registry.gauge("hibernate_statements_prepared", "JDBC statements prepared", hibernate::getPrepareStatementCount);
+            registry.gauge("hibernate_query_executions", "HQL/SQL queries executed", hibernate::getQueryExecutionCount);
+            registry.gauge("hibernate_query_max_seconds", "Slowest query execution",
+                    () -> hibernate.getQueryExecutionMaxTime() / 1e3);
+            registry.gauge("hibernate_slow_queries", "Distinct queries over the slow-query threshold",
+                    () -> hibernate.getSlowQueries().size());
+            registry.gauge("hibernate_entity_loads", "Entities loaded", hibernate::getEntityLoadCount);
+            registry.gauge("hibernate_second_level_cache_hits", "Second-level cache hits", hibernate::getSecondLevelCacheHitCount);
+            registry.gauge("hibernate_second_level_cache_misses", "Second-level cache misses", hibernate::getSecondLevelCacheMissCount);
+            registry.gauge("hibernate_second_level_cache_puts", "Second-level cache puts", hibernate::getSecondLevelCachePutCount);
+            registry.register("password_hash_seconds", "Time per hash or verify on the hashing pool",
+                    passwords.latency());
+            registry.gauge("audit_events_published", "Audit events handed to the ring", audit::published);
+            registry.gauge("audit_last_sequence", "Sequence of the last audit record written", audit::lastSequence);
+            registry.gauge("audit_ring_pending", "Audit events published but not yet written", audit::pending);
+            registry.gauge("audit_events_dropped", "Audit events discarded on a full ring or a failed write",
+                    audit::dropped);
+            registry.register("audit_fsync_seconds", "Time to force an audit segment to disk", audit.fsyncLatency());
+        };
+    }
+
+    private static MethodInterceptor timing(ObjectProvider<MetricsRegistry> registry, String repository) {
+        ConcurrentMap<Method, LatencyHistogram> timers = new ConcurrentHashMap<>();
+        return invocation -> {
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                // Stream-returning queries are timed until the cursor is open, not until it is consumed
+                LatencyHistogram timer = timers.get(invocation.getMethod());
+                if (timer == null) {
+                    timer = timers.computeIfAbsent(invocation.getMethod(), m -> registry.getObject().histogram(
+                            "repository_call_seconds", "Spring Data repository call latency",
+                            "repository", repository, "method", m.getName()));
+                }
+                timer.recordSince(start);
+            }
+        };
+    }
+}
@@ -1,60 +1,62 @@
 package edu.nu.owaspapivulnlab.config;
 
-import io.github.bucket4j.*;
-import jakarta.servlet.*;
-import jakarta.servlet.http.*;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
 
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class RateLimitConfig {
 
     @Bean
-    public RateLimitFilter rateLimitFilter() {
-        return new RateLimitFilter();
+    public RateLimiter rateLimiter(RateLimitProperties properties, ObjectProvider<ProxyManager<String>> proxyManager) {
+        BucketStore store = new BucketStore(properties.getMaxBuckets(), properties.getStripes(),
+                properties.getIdleTimeout());
+        if (properties.getMode() == RateLimitProperties.Mode.LOCAL) {
+            return new RateLimiter(properties, store);
+        }
+        // Remote proxies are kept in the local store too, so each one carries its unsynchronized
+        // token budget between requests instead of round-tripping to the database every time
+        ProxyManager<String> proxies = proxyManager.getObject();
+        Optimization optimization = optimization(properties.getJdbc());
+        return new RateLimiter(properties, store, (key, configuration) -> proxies.builder()
+                .withOptimization(optimization)
+                .build(key, configuration));
     }
 
     @Bean
-    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
-        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>();
-        registration.setFilter(filter);
-        registration.addUrlPatterns("/*"); // ✅ Apply to ALL paths instead of /api
-        registration.setOrder(1);
-        return registration;
+    @ConditionalOnProperty(name = "app.ratelimit.mode", havingValue = "jdbc")
+    public ProxyManager<String> rateLimitProxyManager(DataSource dataSource, RateLimitProperties properties) {
+        return new JdbcProxyManager(dataSource, properties.getJdbc().getTable());
     }
 
-    // Inner class to keep logic encapsulated here
-    public static class RateLimitFilter implements Filter {
-        private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
-
-        private Bucket createNewBucket() {
-            Refill refill = Refill.greedy(10, Duration.ofMinutes(1)); // 10 requests/min
-            Bandwidth limit = Bandwidth.classic(10, refill);
-            return Bucket.builder().addLimit(limit).build();
-        }
-
-        @Override
-        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-                throws IOException, ServletException {
-
-            HttpServletRequest httpRequest = (HttpServletRequest) request;
-            HttpServletResponse httpResponse = (HttpServletResponse) response;
-            String ip = httpRequest.getRemoteAddr();
-
-            Bucket bucket = buckets.computeIfAbsent(ip, k -> createNewBucket());
+    // The only rate-limit filter: registered once, ahead of the security chain so rejected
+    // requests never reach token verification
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimiter limiter,
+                                                                               RateLimitProperties properties) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(limiter));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
 
-            if (bucket.tryConsume(1)) {
-                chain.doFilter(request, response);
-            } else {
-                httpResponse.setStatus(429);
-                httpResponse.getWriter().write("Too Many Requests — Rate limit exceeded");
-            }
+    private static Optimization optimization(RateLimitProperties.Jdbc jdbc) {
+        if (jdbc.getMaxUnsynchronizedTokens() <= 0) {
+            return Optimizations.batching(); // concurrent requests for one key still share a round trip
         }
+        return Optimizations.delaying(new DelayParameters(jdbc.getMaxUnsynchronizedTokens(),
+                jdbc.getMaxUnsynchronizedTime()));
     }
 }
-
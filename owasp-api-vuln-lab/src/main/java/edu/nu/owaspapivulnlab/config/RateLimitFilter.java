@@ -1,43 +1,36 @@
 package edu.nu.owaspapivulnlab.config;
 
-import io.github.bucket4j.*;
-import jakarta.servlet.*;
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.stereotype.Component;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+public class RateLimitFilter extends OncePerRequestFilter {
 
-public class RateLimitFilter implements Filter {
+    private final RateLimiter limiter;
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
-
-    private Bucket createNewBucket() {
-        // 10 requests per minute per IP
-        Refill refill = Refill.greedy(10, Duration.ofMinutes(1));
-        Bandwidth limit = Bandwidth.classic(10, refill);
-        return Bucket.builder().addLimit(limit).build();
+    public RateLimitFilter(RateLimiter limiter) {
+        this.limiter = limiter;
     }
 
     @Override
-    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-            throws IOException, ServletException {
-
-        HttpServletRequest httpRequest = (HttpServletRequest) request;
-        String ip = httpRequest.getRemoteAddr();
-
-        Bucket bucket = buckets.computeIfAbsent(ip, k -> createNewBucket());
-
-        if (bucket.tryConsume(1)) {
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ConsumptionProbe probe = limiter.tryConsume(request);
+        if (probe.isConsumed()) {
             chain.doFilter(request, response); // allowed
-        } else {
-            HttpServletResponse httpResponse = (HttpServletResponse) response;
-            httpResponse.setStatus(429);
-            httpResponse.getWriter().write("Too Many Requests");
+            return;
         }
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()));
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType("text/plain");
+        response.getWriter().write("Too Many Requests");
     }
 }
@@ -0,0 +1,57 @@
+package edu.nu.owaspapivulnlab.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.ratelimit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // LOCAL keeps buckets in this JVM; JDBC shares them across instances through the datasource
+    private Mode mode = Mode.LOCAL;
+
+    // Upper bound on live buckets across all routes and clients
+    private int maxBuckets = 100_000;
+    private int stripes = 16;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    private Limit defaultLimit = new Limit();
+
+    // Checked in order; the first matching route wins, otherwise defaultLimit applies
+    private List<Route> routes = new ArrayList<>();
+
+    private Jdbc jdbc = new Jdbc();
+
+    public enum Mode { LOCAL, JDBC }
+
+    @Data
+    public static class Limit {
+        private long capacity = 60;
+        private Duration period = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Jdbc {
+        private String table = "rate_limit_bucket";
+        // Tokens a node may consume locally before reconciling with the shared state; 0 syncs every request
+        private long maxUnsynchronizedTokens = 5;
+        private Duration maxUnsynchronizedTime = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class Route {
+        private String name;
+        // Spring path pattern, e.g. /api/accounts/{id}/transfer
+        private String pattern;
+        // Optional HTTP method; any method when blank
+        private String method;
+        private long capacity;
+        private Duration period = Duration.ofMinutes(1);
+    }
+}
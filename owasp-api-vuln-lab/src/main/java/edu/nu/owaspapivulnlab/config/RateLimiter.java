@@ -0,0 +1,125 @@
+package edu.nu.owaspapivulnlab.config;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Resolves the limit for a request and charges the caller's bucket for that route exactly once
+public class RateLimiter {
+
+    private final List<RouteLimit> routes = new ArrayList<>();
+    private final RouteLimit defaultLimit;
+    private final BucketStore store;
+    private final BucketFactory factory;
+    private final LongAdder rejections = new LongAdder();
+
+    public RateLimiter(RateLimitProperties properties, BucketStore store) {
+        this(properties, store, RateLimiter::localBucket);
+    }
+
+    public RateLimiter(RateLimitProperties properties, BucketStore store, BucketFactory factory) {
+        this.store = store;
+        this.factory = factory;
+        this.defaultLimit = new RouteLimit("default", null, null,
+                properties.getDefaultLimit().getCapacity(), properties.getDefaultLimit().getPeriod());
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            routes.add(new RouteLimit(route.getName(), PathPatternParser.defaultInstance.parse(route.getPattern()),
+                    route.getMethod(), route.getCapacity(), route.getPeriod()));
+        }
+    }
+
+    public ConsumptionProbe tryConsume(HttpServletRequest request) {
+        RouteLimit limit = resolve(request);
+        String key = limit.name + '|' + request.getRemoteAddr();
+        Bucket bucket = store.get(key, () -> factory.create(key, limit.configuration));
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        if (!probe.isConsumed()) {
+            rejections.increment();
+            limit.rejections.increment();
+        }
+        return probe;
+    }
+
+    public int storeSize() {
+        return store.size();
+    }
+
+    public long evictions() {
+        return store.evictions();
+    }
+
+    public long rejections() {
+        return rejections.sum();
+    }
+
+    public Map<String, Long> rejectionsByRoute() {
+        Map<String, Long> byRoute = new LinkedHashMap<>();
+        for (RouteLimit route : routes) {
+            byRoute.put(route.name, route.rejections.sum());
+        }
+        byRoute.put(defaultLimit.name, defaultLimit.rejections.sum());
+        return byRoute;
+    }
+
+    public static Bucket localBucket(String key, BucketConfiguration configuration) {
+        LocalBucketBuilder builder = Bucket.builder();
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            builder.addLimit(bandwidth);
+        }
+        return builder.build();
+    }
+
+    // Creates the bucket behind a store key: in-heap for local mode, a remote proxy for distributed mode
+    @FunctionalInterface
+    public interface BucketFactory {
+        Bucket create(String key, BucketConfiguration configuration);
+    }
+
+    private RouteLimit resolve(HttpServletRequest request) {
+        if (routes.isEmpty()) {
+            return defaultLimit;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (RouteLimit route : routes) {
+            if (route.matches(request.getMethod(), path)) {
+                return route;
+            }
+        }
+        return defaultLimit;
+    }
+
+    private static final class RouteLimit {
+        final String name;
+        final PathPattern pattern;
+        final String method;
+        final BucketConfiguration configuration;
+        final LongAdder rejections = new LongAdder();
+
+        RouteLimit(String name, PathPattern pattern, String method, long capacity, Duration period) {
+            this.name = name;
+            this.pattern = pattern;
+            this.method = method == null || method.isBlank() ? null : method;
+            this.configuration = BucketConfiguration.builder()
+                    .addLimit(Bandwidth.classic(capacity, Refill.greedy(capacity, period)))
+                    .build();
+        }
+
+        boolean matches(String requestMethod, PathContainer path) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && pattern.matches(path);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package edu.nu.owaspapivulnlab.config;
+
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Times every request against the matched route pattern (not the raw path, which would give one
+// series per id). Histograms are cached per pattern and method, so a request allocates nothing here.
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    static final String UNMATCHED = "UNMATCHED";
+    private static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE", "OTHER"};
+
+    private final MetricsRegistry registry;
+    private final ConcurrentMap<String, LatencyHistogram[]> routes = new ConcurrentHashMap<>();
+
+    public RequestMetricsFilter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern == null ? UNMATCHED : pattern.toString();
+            LatencyHistogram[] byMethod = routes.get(route);
+            if (byMethod == null) {
+                byMethod = routes.computeIfAbsent(route, r -> new LatencyHistogram[METHODS.length]);
+            }
+            int m = methodIndex(request.getMethod());
+            LatencyHistogram histogram = byMethod[m];
+            if (histogram == null) {
+                // Benign race: two threads may resolve the same series, the registry returns one instance
+                histogram = registry.histogram("http_server_requests_seconds", "Request latency by route",
+                        "route", route, "method", METHODS[m]);
+                byMethod[m] = histogram;
+            }
+            histogram.recordSince(start);
+        }
+    }
+
+    private static int methodIndex(String method) {
+        return switch (method) {
+            case "GET" -> 0;
+            case "POST" -> 1;
+            case "PUT" -> 2;
+            case "PATCH" -> 3;
+            case "DELETE" -> 4;
+            default -> 5;
+        };
+    }
+}
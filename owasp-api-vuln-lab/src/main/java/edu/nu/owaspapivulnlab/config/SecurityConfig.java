@@ -1,56 +1,31 @@
 package edu.nu.owaspapivulnlab.config;
 
-import io.github.bucket4j.*;
+import edu.nu.owaspapivulnlab.service.JwtService;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import edu.nu.owaspapivulnlab.service.TokenRevocationService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.web.filter.OncePerRequestFilter;
-
-import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 public class SecurityConfig {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
-
-    private Bucket createNewBucket() {
-        Refill refill = Refill.greedy(10, Duration.ofMinutes(1));
-        Bandwidth limit = Bandwidth.classic(10, refill);
-        return Bucket.builder().addLimit(limit).build();
-    }
-
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtService jwtService,
+                                                   TokenRevocationService revocations,
+                                                   MetricsRegistry metrics) throws Exception {
 
         http.csrf().disable(); // for testing
         http.authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
 
-        http.addFilterBefore(new OncePerRequestFilter() {
-            @Override
-            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-                String ip = request.getRemoteAddr();
-                Bucket bucket = buckets.computeIfAbsent(ip, k -> createNewBucket());
-
-                if (bucket.tryConsume(1)) {
-                    filterChain.doFilter(request, response);
-                } else {
-                    response.setStatus(429);
-                    response.setContentType("text/plain");
-                    response.getWriter().write("Too Many Requests");
-                }
-            }
-        }, UsernamePasswordAuthenticationFilter.class);
+        // Rate limiting runs as a servlet filter ahead of this chain (see RateLimitConfig)
+        http.addFilterBefore(new JwtAuthenticationFilter(jwtService, revocations,
+                metrics.histogram("jwt_verify_seconds", "Bearer token verification time, cache hits included"),
+                metrics.histogram("jwt_revocation_check_seconds", "Denylist check per authenticated request")),
+                UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 }
-
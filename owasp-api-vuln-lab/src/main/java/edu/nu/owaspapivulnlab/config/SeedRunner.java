@@ -0,0 +1,58 @@
+package edu.nu.owaspapivulnlab.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs the seeders' work in runner order. By default that is inline, during startup; with
+// app.seed.async it is one background thread, so the server takes traffic while data loads.
+@Component
+public class SeedRunner implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedRunner.class);
+
+    private final ExecutorService executor;
+
+    public SeedRunner(@Value("${app.seed.async:false}") boolean async) {
+        this.executor = async ? Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "seeder");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    public boolean isAsync() {
+        return executor != null;
+    }
+
+    public void run(String name, Task task) throws Exception {
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Seeding by {} failed", name, e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,40 @@
+package edu.nu.owaspapivulnlab.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hands out connections of the shard bound to the calling thread (see AccountShards). Shard 0 is the
+// primary pool; the pools of the other shards belong to this data source and close with it.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(DataSource primary, List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(0, primary);
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i + 1, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // A shard index without a pool is a routing bug, not a reason to write to the primary
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return AccountShards.current();
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
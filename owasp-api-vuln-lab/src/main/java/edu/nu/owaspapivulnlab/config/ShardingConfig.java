@@ -0,0 +1,84 @@
+package edu.nu.owaspapivulnlab.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class ShardingConfig {
+
+    // allocationSize of Account's sequence generator
+    private static final int ACCOUNT_ID_BLOCK = 50;
+
+    // Declaring a DataSource makes Boot back off from its own pool, so the primary pool (shard 0) is
+    // declared here, from the same spring.datasource settings
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Shards 1..count-1 are separate databases at url-template; each gets the schema script, and its
+    // account sequence is moved to the start of the shard's id range
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                             ObjectProvider<MetricsRegistry> registry,
+                                             @Value("${app.shards.count:1}") int count,
+                                             @Value("${app.shards.url-template:jdbc:h2:mem:apilab-shard-{index};DB_CLOSE_DELAY=-1}") String urlTemplate,
+                                             @Value("${app.shards.pool-size:16}") int poolSize) {
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (int shard = 1; shard < count; shard++) {
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(urlTemplate.replace("{index}", Integer.toString(shard)))
+                    .build();
+            pool.setPoolName("apilab-shard-" + shard);
+            pool.setMaximumPoolSize(poolSize);
+            pool.setMetricsTrackerFactory(new HikariMetrics(registry));
+            new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(pool);
+            JdbcTemplate jdbc = new JdbcTemplate(pool);
+            Long next = jdbc.queryForObject("select next value for account_seq", Long.class);
+            if (next == null || next < AccountShards.firstAccountId(shard)) {
+                // Hibernate's pooled optimizer takes a fetched value as the top of a block of ACCOUNT_ID_BLOCK ids
+                jdbc.execute("alter sequence account_seq restart with "
+                        + (AccountShards.firstAccountId(shard) + ACCOUNT_ID_BLOCK - 1));
+            }
+            shards.add(pool);
+        }
+        return new ShardRoutingDataSource(primaryDataSource, shards);
+    }
+
+    // The shard as Hibernate's tenant id: sequence optimizers keep one block of ids per tenant, so an id
+    // fetched from one shard's sequence is never used for a row on another
+    @Bean
+    public HibernatePropertiesCustomizer shardTenantResolver() {
+        return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER,
+                new CurrentTenantIdentifierResolver<String>() {
+                    @Override
+                    public String resolveCurrentTenantIdentifier() {
+                        return Integer.toString(AccountShards.current());
+                    }
+
+                    @Override
+                    public boolean validateExistingCurrentSessions() {
+                        return false;
+                    }
+                });
+    }
+}
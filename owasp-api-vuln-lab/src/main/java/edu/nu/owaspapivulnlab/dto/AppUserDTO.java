@@ -1,18 +1,10 @@
 package edu.nu.owaspapivulnlab.dto;
 
-public class AppUserDTO {
-    private Long id;
-    private String username;
-    private String email;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
-    public AppUserDTO(Long id, String username, String email) {
-        this.id = id;
-        this.username = username;
-        this.email = email;
-    }
-
-    // getters
-    public Long getId() { return id; }
-    public String getUsername() { return username; }
-    public String getEmail() { return email; }
+// Read model for user endpoints, filled by JPQL constructor expressions: the password column is never
+// selected and, not being an entity, the result is neither tracked nor dirty-checked by Hibernate.
+// 'admin' keeps the JSON name the entity serializes isAdmin under; the version travels as the ETag.
+public record AppUserDTO(Long id, String username, String email, String role, boolean admin,
+                         @JsonIgnore Long version) {
 }
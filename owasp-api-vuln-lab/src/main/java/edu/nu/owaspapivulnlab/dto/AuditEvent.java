@@ -0,0 +1,14 @@
+package edu.nu.owaspapivulnlab.dto;
+
+import java.time.Instant;
+
+// One audit log record as read back from the segment files. The sequence is assigned when the record is
+// written, so it is gap-free and survives restarts; subjectId is the account or user acted on, and the
+// actor is truncated to what fits the fixed-size record.
+public record AuditEvent(long sequence, Instant at, Type type, String actor, long subjectId, double amount) {
+
+    public enum Type {
+        TRANSFER,
+        USER_DELETE
+    }
+}
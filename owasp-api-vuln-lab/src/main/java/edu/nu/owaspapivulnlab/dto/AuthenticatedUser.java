@@ -0,0 +1,13 @@
+package edu.nu.owaspapivulnlab.dto;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+// The principal the JWT filter authenticates: the token's subject and, for tokens that carry the uid
+// claim, the user's id, so handlers need no lookup to find the caller's row. id is null for older tokens.
+public record AuthenticatedUser(Long id, String username) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,44 @@
+package edu.nu.owaspapivulnlab.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Outcome of one element of a batch request, addressed by its position in the submitted array
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    private final int index;
+    private final String status;
+    private final Long id;
+    private final Double remaining;
+    private final String error;
+
+    private BatchItemResult(int index, String status, Long id, Double remaining, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.remaining = remaining;
+        this.error = error;
+    }
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, "created", id, null, null);
+    }
+
+    public static BatchItemResult transferred(int index, Long accountId, double remaining) {
+        return new BatchItemResult(index, "ok", accountId, remaining, null);
+    }
+
+    public static BatchItemResult failed(int index, String status, String error) {
+        return new BatchItemResult(index, status, null, null, error);
+    }
+
+    public boolean succeeded() {
+        return error == null;
+    }
+
+    // getters
+    public int getIndex() { return index; }
+    public String getStatus() { return status; }
+    public Long getId() { return id; }
+    public Double getRemaining() { return remaining; }
+    public String getError() { return error; }
+}
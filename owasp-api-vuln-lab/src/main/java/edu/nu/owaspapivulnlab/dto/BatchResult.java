@@ -0,0 +1,30 @@
+package edu.nu.owaspapivulnlab.dto;
+
+import java.util.List;
+
+public class BatchResult {
+    private final int succeeded;
+    private final int failed;
+    // True when the array held more items than the batch limit; the rest were not read
+    private final boolean truncated;
+    private final List<BatchItemResult> items;
+
+    public BatchResult(List<BatchItemResult> items, boolean truncated) {
+        int ok = 0;
+        for (BatchItemResult item : items) {
+            if (item.succeeded()) {
+                ok++;
+            }
+        }
+        this.succeeded = ok;
+        this.failed = items.size() - ok;
+        this.truncated = truncated;
+        this.items = items;
+    }
+
+    // getters
+    public int getSucceeded() { return succeeded; }
+    public int getFailed() { return failed; }
+    public boolean isTruncated() { return truncated; }
+    public List<BatchItemResult> getItems() { return items; }
+}
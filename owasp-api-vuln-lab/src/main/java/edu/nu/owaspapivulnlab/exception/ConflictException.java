@@ -0,0 +1,10 @@
+package edu.nu.owaspapivulnlab.exception;
+
+import org.springframework.http.HttpStatus;
+
+// The request clashes with existing state, e.g. a username that is already taken; mapped to 409
+public class ConflictException extends CustomException {
+    public ConflictException(String message) {
+        super(HttpStatus.CONFLICT, message);
+    }
+}
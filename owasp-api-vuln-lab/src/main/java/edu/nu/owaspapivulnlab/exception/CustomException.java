@@ -1,7 +1,20 @@
 package edu.nu.owaspapivulnlab.exception;
 
-public class CustomException extends RuntimeException {
-    public CustomException(String message) {
-        super(message);
+import org.springframework.http.HttpStatus;
+
+// Expected outcomes of a request (a miss, a refusal, a clash) rather than faults: each subtype maps to
+// one status. They are built without a stack trace, since nobody reads it and enumeration traffic
+// produces them by the thousand; keep messages constant so GlobalErrorHandler can reuse the body.
+public abstract class CustomException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    protected CustomException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
     }
 }
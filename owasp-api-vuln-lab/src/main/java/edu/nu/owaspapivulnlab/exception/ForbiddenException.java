@@ -0,0 +1,10 @@
+package edu.nu.owaspapivulnlab.exception;
+
+import org.springframework.http.HttpStatus;
+
+// The caller is known but may not touch the resource; mapped to 403
+public class ForbiddenException extends CustomException {
+    public ForbiddenException(String message) {
+        super(HttpStatus.FORBIDDEN, message);
+    }
+}
@@ -0,0 +1,8 @@
+package edu.nu.owaspapivulnlab.exception;
+
+// Malformed request body the client has to fix; mapped to 400. No stack trace, like CustomException
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message, null, false, false);
+    }
+}
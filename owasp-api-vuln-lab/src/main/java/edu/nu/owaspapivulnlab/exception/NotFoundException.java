@@ -0,0 +1,10 @@
+package edu.nu.owaspapivulnlab.exception;
+
+import org.springframework.http.HttpStatus;
+
+// The addressed resource does not exist; mapped to 404
+public class NotFoundException extends CustomException {
+    public NotFoundException(String message) {
+        super(HttpStatus.NOT_FOUND, message);
+    }
+}
@@ -0,0 +1,9 @@
+package edu.nu.owaspapivulnlab.exception;
+
+// Thrown when a bounded work queue is full; mapped to 503 so clients back off instead of piling up.
+// Built without a stack trace, like CustomException: it is raised in bursts when the server is busiest
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message, null, false, false);
+    }
+}
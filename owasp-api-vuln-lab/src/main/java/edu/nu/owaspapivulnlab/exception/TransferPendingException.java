@@ -0,0 +1,11 @@
+package edu.nu.owaspapivulnlab.exception;
+
+import org.springframework.http.HttpStatus;
+
+// The caller stopped waiting while its transfer was being committed, so it may or may not have been
+// applied; mapped to 504, deliberately without Retry-After since repeating the POST could debit twice
+public class TransferPendingException extends CustomException {
+    public TransferPendingException(String message) {
+        super(HttpStatus.GATEWAY_TIMEOUT, message);
+    }
+}
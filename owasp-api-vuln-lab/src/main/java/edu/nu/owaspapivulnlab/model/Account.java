@@ -4,11 +4,18 @@ package edu.nu.owaspapivulnlab.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+// Owner index is not unique: a user may own several accounts
 @Entity @Data @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = @Index(name = "idx_account_owner", columnList = "ownerUserId"))
 public class Account {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", allocationSize = 50)
     private Long id;
     private Long ownerUserId;
     private String iban;
+    // Opening balance: transfers append LedgerEntry rows instead of rewriting this column
     private Double balance;
+    // Changes with the row itself, not with transfers: those only append ledger entries
+    @Version
+    private Long version;
 }
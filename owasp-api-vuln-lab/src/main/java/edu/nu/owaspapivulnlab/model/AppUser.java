@@ -5,12 +5,21 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
+// Login looks users up by username and batch creation checks both username and email for duplicates:
+// both are unique and therefore indexed
 @Entity @Data @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_app_user_username", columnNames = "username"),
+        @UniqueConstraint(name = "uk_app_user_email", columnNames = "email")
+})
 public class AppUser {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence instead of IDENTITY: Hibernate can only batch inserts when it knows the ids up front
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_user_seq")
+    @SequenceGenerator(name = "app_user_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
+    @Size(max = 255)
     private String username;
 
     // VULNERABILITY(API3: Excessive Data Exposure): storing plaintext passwords for demo
@@ -23,5 +32,10 @@ public class AppUser {
     private boolean isAdmin;
 
     @Email
+    @Size(max = 255)
     private String email;
+
+    // Bumped by Hibernate on every update; conditional GETs use it as the ETag
+    @Version
+    private Long version;
 }
@@ -0,0 +1,21 @@
+
+package edu.nu.owaspapivulnlab.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+// Balance of an account including every ledger entry up to and including lastEntryId
+@Entity @Immutable @Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = @Index(name = "idx_snapshot_account_entry", columnList = "accountId, lastEntryId"))
+public class BalanceSnapshot {
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_snapshot_seq")
+    @SequenceGenerator(name = "balance_snapshot_seq", allocationSize = 50)
+    private Long id;
+    private Long accountId;
+    private Double balance;
+    private Long lastEntryId;
+    private Instant takenAt;
+}
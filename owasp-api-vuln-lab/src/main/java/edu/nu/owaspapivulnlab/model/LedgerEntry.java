@@ -0,0 +1,22 @@
+
+package edu.nu.owaspapivulnlab.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+// Append-only: rows are inserted by the transfer engine and never updated
+@Entity @Immutable @Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = @Index(name = "idx_ledger_account_entry", columnList = "accountId, id"))
+public class LedgerEntry {
+    // Pooled sequence so a batch of entries goes out as one JDBC batch insert
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", allocationSize = 50)
+    private Long id;
+    private Long accountId;
+    // Signed: debits are negative
+    private Double amount;
+    private Instant createdAt;
+}
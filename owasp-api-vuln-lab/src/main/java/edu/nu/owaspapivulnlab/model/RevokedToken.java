@@ -0,0 +1,16 @@
+package edu.nu.owaspapivulnlab.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+// A revoked token's jti, kept until the token would have expired anyway
+@Entity @Immutable @Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = @Index(name = "idx_revoked_token_expires", columnList = "expiresAt"))
+public class RevokedToken {
+    @Id
+    private String jti;
+    private Instant expiresAt;
+}
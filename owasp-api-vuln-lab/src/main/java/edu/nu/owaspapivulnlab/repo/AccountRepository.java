@@ -1,10 +1,24 @@
 package edu.nu.owaspapivulnlab.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import edu.nu.owaspapivulnlab.model.Account;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findByOwnerUserId(Long ownerUserId);
+
+    // Opening balance only; the current balance is derived from the ledger
+    @Query("select a.balance from Account a where a.id = :id")
+    Optional<Double> findOpeningBalanceById(Long id);
+
+    @Query("select count(a) as accounts, coalesce(sum(a.balance), 0) as openingBalances from Account a")
+    Totals findTotals();
+
+    interface Totals {
+        Long getAccounts();
+        Double getOpeningBalances();
+    }
 }
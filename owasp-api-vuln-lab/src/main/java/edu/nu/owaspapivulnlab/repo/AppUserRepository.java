@@ -1,18 +1,79 @@
 package edu.nu.owaspapivulnlab.repo;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+import edu.nu.owaspapivulnlab.dto.AppUserDTO;
 import edu.nu.owaspapivulnlab.model.AppUser;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
     Optional<AppUser> findByUsername(String username);
- Optional<AppUser> findByEmail(String email);
+
+    // Principal resolution for tokens without the uid claim
+    @Query("select u.id from AppUser u where u.username = ?1")
+    Optional<Long> findIdByUsername(String username);
+
+    // Read paths project straight into AppUserDTO. Declared query methods are not covered by the
+    // repository's default read-only transaction, so these ask for one (or join the caller's)
+    @Transactional(readOnly = true)
+    @Query("select new edu.nu.owaspapivulnlab.dto.AppUserDTO(u.id, u.username, u.email, u.role, u.isAdmin, u.version) from AppUser u where u.id = ?1")
+    Optional<AppUserDTO> findViewById(Long id);
+
+    @Transactional(readOnly = true)
+    @Query("select new edu.nu.owaspapivulnlab.dto.AppUserDTO(u.id, u.username, u.email, u.role, u.isAdmin, u.version) from AppUser u where u.id in ?1")
+    List<AppUserDTO> findViewsByIdIn(Collection<Long> ids);
+
+    // Just enough to answer a conditional GET for the caller's own row without loading it
+    @Query("select u.id as id, u.version as version from AppUser u where u.id = ?1")
+    Optional<VersionStamp> findVersionById(Long id);
 
     // VULNERABILITY (API9: Improper Inventory/SQLi exemplar using JPQL concatenation via SpEL workaround in controller)
-    @Query("select u from AppUser u where u.username like %?1% or u.email like %?1%")
-    List<AppUser> search(String q);
+    @Transactional(readOnly = true)
+    @Query("select new edu.nu.owaspapivulnlab.dto.AppUserDTO(u.id, u.username, u.email, u.role, u.isAdmin, u.version) from AppUser u where u.username like %?1% or u.email like %?1%")
+    List<AppUserDTO> search(String q);
+
+    // Batch creation checks a whole chunk for taken usernames and emails in two queries
+    @Query("select u.username from AppUser u where u.username in ?1")
+    List<String> findExistingUsernames(Collection<String> usernames);
+
+    @Query("select u.email from AppUser u where u.email in ?1")
+    List<String> findExistingEmails(Collection<String> emails);
+
+    // Keyset (seek) page: the caller passes the last id it has seen instead of an offset
+    @Transactional(readOnly = true)
+    @Query("select new edu.nu.owaspapivulnlab.dto.AppUserDTO(u.id, u.username, u.email, u.role, u.isAdmin, u.version) from AppUser u where u.id > ?1 order by u.id")
+    List<AppUserDTO> findViewsAfter(Long afterId, Limit limit);
+
+    // Cursor over the whole table for the streaming export; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from AppUser u order by u.id")
+    Stream<AppUser> streamAllOrderById();
+
+    // Keyset-paged read of just the searchable columns, used to build the in-memory search index
+    @Query("select u.id as id, u.username as username, u.email as email from AppUser u where u.id > ?1 order by u.id")
+    List<SearchFields> findSearchFieldsAfter(Long afterId, Limit limit);
+
+    interface VersionStamp {
+        Long getId();
+        Long getVersion();
+    }
+
+    interface SearchFields {
+        Long getId();
+        String getUsername();
+        String getEmail();
+    }
 
 }
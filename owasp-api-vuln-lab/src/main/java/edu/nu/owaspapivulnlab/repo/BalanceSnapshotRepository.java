@@ -0,0 +1,10 @@
+package edu.nu.owaspapivulnlab.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import edu.nu.owaspapivulnlab.model.BalanceSnapshot;
+
+import java.util.Optional;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    Optional<BalanceSnapshot> findFirstByAccountIdOrderByLastEntryIdDesc(Long accountId);
+}
@@ -0,0 +1,37 @@
+package edu.nu.owaspapivulnlab.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import edu.nu.owaspapivulnlab.model.LedgerEntry;
+
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // Range scan on idx_ledger_account_entry: cost grows with the tail, not the account's history
+    @Query("select coalesce(sum(e.amount), 0) from LedgerEntry e where e.accountId = :accountId and e.id > :afterId and e.id <= :upToId")
+    double sumBetween(Long accountId, Long afterId, Long upToId);
+
+    @Query("select coalesce(sum(e.amount), 0) from LedgerEntry e")
+    double sumAll();
+
+    @Query("select coalesce(max(e.id), 0) from LedgerEntry e")
+    long findMaxId();
+
+    @Query("select coalesce(sum(e.amount), 0) as total, max(e.id) as lastEntryId from LedgerEntry e where e.accountId = :accountId and e.id > :afterId")
+    Tail findTailAfter(Long accountId, Long afterId);
+
+    @Query("select e.accountId as accountId, max(e.id) as lastEntryId from LedgerEntry e where e.id > :afterId group by e.accountId")
+    List<AccountHead> findHeadsAfter(Long afterId);
+
+    interface Tail {
+        Double getTotal();
+        // null when there are no entries after the given id
+        Long getLastEntryId();
+    }
+
+    interface AccountHead {
+        Long getAccountId();
+        Long getLastEntryId();
+    }
+}
@@ -0,0 +1,23 @@
+package edu.nu.owaspapivulnlab.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import edu.nu.owaspapivulnlab.model.RevokedToken;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    boolean existsByJtiAndExpiresAtAfter(String jti, Instant now);
+
+    // Everything the Bloom filter has to hold after a rebuild
+    @Query("select t.jti from RevokedToken t where t.expiresAt > ?1")
+    List<String> findActiveJtis(Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken t where t.expiresAt <= ?1")
+    int deleteExpired(Instant now);
+}
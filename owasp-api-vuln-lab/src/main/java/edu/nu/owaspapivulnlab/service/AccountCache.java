@@ -0,0 +1,102 @@
+package edu.nu.owaspapivulnlab.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+// Read-through cache for the account read endpoints. Balances are written through by the transfer
+// engine after each commit, so a read never returns a balance older than a committed transfer.
+// Owner lists hold detached copies with the opening balance; current balances come from the
+// balance cache at read time, which is why transfers never need to touch the owner lists. A miss
+// reads from one shard: the account's for a balance, the owner's for a list.
+@Service
+public class AccountCache {
+
+    private final LedgerService ledger;
+    private final AccountRepository accounts;
+    private final AccountShards shards;
+    private final boolean enabled;
+    private final Cache<Long, Double> balances;
+    private final Cache<Long, List<Account>> owned;
+
+    public AccountCache(LedgerService ledger, AccountRepository accounts, AccountShards shards,
+                        @Value("${app.cache.accounts.enabled:true}") boolean enabled,
+                        @Value("${app.cache.accounts.max-balances:100000}") long maxBalances,
+                        @Value("${app.cache.accounts.max-owners:50000}") long maxOwners) {
+        this.ledger = ledger;
+        this.accounts = accounts;
+        this.shards = shards;
+        this.enabled = enabled;
+        this.balances = Caffeine.newBuilder().maximumSize(maxBalances).recordStats().build();
+        this.owned = Caffeine.newBuilder().maximumSize(maxOwners).recordStats().build();
+    }
+
+    public Optional<Double> balance(Long accountId) {
+        if (!enabled) {
+            return loadBalance(accountId);
+        }
+        // A null from the loader (unknown account) is not cached
+        return Optional.ofNullable(balances.get(accountId, id -> loadBalance(id).orElse(null)));
+    }
+
+    public List<Account> ownedBy(Long ownerUserId) {
+        if (!enabled) {
+            return load(ownerUserId);
+        }
+        return owned.get(ownerUserId, this::load);
+    }
+
+    // Called by the transfer engine once the balance is committed
+    public void committed(Long accountId, double balance) {
+        if (enabled) {
+            balances.put(accountId, balance);
+        }
+    }
+
+    // For the seeders, which add accounts behind the API's back: owner lists cached before then (an early
+    // request while app.seed.async is loading data) would otherwise stay short until evicted by size.
+    // Balances need nothing, since unknown accounts are never cached.
+    public void accountsAdded(Long ownerUserId) {
+        owned.invalidate(ownerUserId);
+    }
+
+    public void accountsAdded() {
+        owned.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CacheStats balanceStats() {
+        return balances.stats();
+    }
+
+    public CacheStats ownerStats() {
+        return owned.stats();
+    }
+
+    private Optional<Double> loadBalance(long accountId) {
+        int shard = shards.shardOfAccount(accountId);
+        return shard < 0 ? Optional.empty() : shards.onShard(shard, () -> ledger.balance(accountId));
+    }
+
+    private List<Account> load(Long ownerUserId) {
+        return shards.onOwner(ownerUserId, () -> accounts.findByOwnerUserId(ownerUserId)).stream()
+                .map(a -> Account.builder()
+                        .id(a.getId())
+                        .ownerUserId(a.getOwnerUserId())
+                        .iban(a.getIban())
+                        .balance(a.getBalance())
+                        .version(a.getVersion())
+                        .build())
+                .toList();
+    }
+}
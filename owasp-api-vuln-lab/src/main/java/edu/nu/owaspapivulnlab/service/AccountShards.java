@@ -0,0 +1,129 @@
+package edu.nu.owaspapivulnlab.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// Accounts, with their ledger entries and balance snapshots, live on one of app.shards.count databases,
+// picked by a consistent hash of the owner's user id. Work reaches a shard by binding it to the calling
+// thread: the routing DataSource then hands out that shard's connections, and Hibernate, which gets the
+// shard as its tenant id, keeps each shard's id blocks apart. Shard k allocates account ids from
+// k << ID_SHIFT, so anything keyed by account id goes straight to one shard. Shard 0 is the primary
+// database, which also holds everything that is not sharded; unbound work goes there.
+@Service
+public class AccountShards implements DisposableBean {
+
+    public static final int ID_SHIFT = 40;
+
+    private static final ThreadLocal<Integer> BOUND = new ThreadLocal<>();
+
+    private final int count;
+    private final ConsistentHashRing ring;
+    private final ExecutorService fanOut;
+
+    public AccountShards(@Value("${app.shards.count:1}") int count,
+                         @Value("${app.shards.virtual-nodes:128}") int virtualNodes) {
+        this.count = count;
+        this.ring = new ConsistentHashRing(count, virtualNodes);
+        this.fanOut = count == 1 ? null : Executors.newFixedThreadPool(count, r -> {
+            Thread t = new Thread(r, "shard-fan-out");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // The shard connections are taken from on this thread
+    public static int current() {
+        Integer shard = BOUND.get();
+        return shard != null ? shard : 0;
+    }
+
+    // For threads that only ever work on one shard, such as the transfer partitions
+    public static void bind(int shard) {
+        BOUND.set(shard);
+    }
+
+    public static long firstAccountId(int shard) {
+        return ((long) shard << ID_SHIFT) + 1;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOfOwner(long ownerUserId) {
+        return count == 1 ? 0 : ring.shardOf(ownerUserId);
+    }
+
+    // -1 for ids that no configured shard hands out
+    public int shardOfAccount(long accountId) {
+        long shard = accountId >>> ID_SHIFT;
+        return shard < count ? (int) shard : -1;
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (shard != current() && TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The transaction's connection belongs to the shard it started on
+            throw new IllegalStateException("Cannot switch to shard " + shard + " inside a transaction on shard " + current());
+        }
+        Integer previous = BOUND.get();
+        BOUND.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                BOUND.remove();
+            } else {
+                BOUND.set(previous);
+            }
+        }
+    }
+
+    public <T> T onOwner(long ownerUserId, Supplier<T> work) {
+        return onShard(shardOfOwner(ownerUserId), work);
+    }
+
+    // Runs the query on every shard at once; results are in shard order
+    public <T> List<T> fanOut(IntFunction<T> query) {
+        if (fanOut == null) {
+            return List.of(onShard(0, () -> query.apply(0)));
+        }
+        List<Future<T>> pending = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int s = shard;
+            pending.add(fanOut.submit(() -> onShard(s, () -> query.apply(s))));
+        }
+        List<T> results = new ArrayList<>(count);
+        try {
+            for (Future<T> result : pending) {
+                results.add(result.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", e);
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        if (fanOut != null) {
+            fanOut.shutdownNow();
+        }
+    }
+}
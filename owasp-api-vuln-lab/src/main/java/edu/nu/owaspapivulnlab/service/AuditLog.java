@@ -0,0 +1,227 @@
+package edu.nu.owaspapivulnlab.service;
+
+import edu.nu.owaspapivulnlab.dto.AuditEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Audit trail of transfers and admin actions, kept off the request path: a request thread only copies
+// its event into a preallocated ring, and a single writer thread appends whatever has been published to
+// memory-mapped segment files. How soon a written record is durable is the policy's choice: OS leaves
+// write-back to the operating system (survives a crash of the process, not of the machine), INTERVAL
+// forces the segment at most every fsync-interval, BATCH after every batch it writes. When the writer
+// falls a whole ring behind, BLOCK makes publishers wait for it and DROP discards the event and counts it.
+@Service
+public class AuditLog implements DisposableBean {
+
+    public enum Durability { OS, INTERVAL, BATCH }
+
+    public enum WhenFull { BLOCK, DROP }
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    private static final int READ_PAGE = 1000;
+
+    private final Path dir;
+    private final boolean temporary;
+    private final Durability durability;
+    private final long fsyncIntervalNanos;
+    private final WhenFull whenFull;
+    private final int maxBatch;
+    private final AuditRingBuffer ring;
+    private final AuditSegments segments;
+    private final Writer writer;
+    private final LatencyHistogram fsyncLatency = new LatencyHistogram();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile long written;
+
+    public AuditLog(@Value("${app.audit.enabled:true}") boolean enabled,
+                    @Value("${app.audit.dir:}") String dir,
+                    @Value("${app.audit.ring-size:16384}") int ringSize,
+                    @Value("${app.audit.segment-size-mb:64}") int segmentSizeMb,
+                    @Value("${app.audit.durability:interval}") Durability durability,
+                    @Value("${app.audit.fsync-interval-ms:1000}") long fsyncIntervalMs,
+                    @Value("${app.audit.when-full:block}") WhenFull whenFull,
+                    @Value("${app.audit.max-batch:1024}") int maxBatch) throws IOException {
+        this.durability = durability;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.whenFull = whenFull;
+        this.maxBatch = maxBatch;
+        if (!enabled) {
+            this.dir = null;
+            this.temporary = false;
+            this.ring = null;
+            this.segments = null;
+            this.writer = null;
+            return;
+        }
+        // Without a configured directory the trail lives as long as the process, like the in-memory database
+        this.temporary = dir.isBlank();
+        this.dir = temporary ? Files.createTempDirectory("apilab-audit") : Path.of(dir);
+        this.segments = new AuditSegments(this.dir, (long) segmentSizeMb << 20);
+        this.written = segments.lastSequence();
+        this.ring = new AuditRingBuffer(ringSize);
+        this.writer = new Writer();
+        this.writer.start();
+        log.info("Audit log in {} continues at sequence {} ({} durability)", this.dir, written + 1, durability);
+    }
+
+    public void transfer(String actor, long accountId, double amount) {
+        publish(AuditEvent.Type.TRANSFER, actor, accountId, amount);
+    }
+
+    public void userDeleted(String actor, long userId) {
+        publish(AuditEvent.Type.USER_DELETE, actor, userId, 0);
+    }
+
+    public void publish(AuditEvent.Type type, String actor, long subjectId, double amount) {
+        if (ring == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        while (!ring.tryPublish(type, actor != null ? actor : "anonymous", subjectId, amount, now)) {
+            if (whenFull == WhenFull.DROP || !running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    // Records from 'from' on, at most limit, as far as the writer has got; publishing is asynchronous,
+    // so an event shows up here once lastSequence() has reached it
+    public List<AuditEvent> read(long fromSequence, int limit) {
+        if (dir == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        try {
+            return AuditSegments.read(dir, fromSequence, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Hands every written record from 'from' on to the sink, a page at a time; returns the sequence
+    // to resume from
+    public long replay(long fromSequence, Consumer<AuditEvent> sink) {
+        long next = Math.max(fromSequence, 1);
+        List<AuditEvent> page;
+        do {
+            page = read(next, READ_PAGE);
+            for (AuditEvent event : page) {
+                sink.accept(event);
+                next = event.sequence() + 1;
+            }
+        } while (page.size() == READ_PAGE);
+        return next;
+    }
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    public long lastSequence() {
+        return written;
+    }
+
+    public long published() {
+        return ring != null ? ring.claimed() : 0;
+    }
+
+    public long pending() {
+        return ring != null ? ring.pending() : 0;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public LatencyHistogram fsyncLatency() {
+        return fsyncLatency;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        segments.close();
+        if (temporary) {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    private void write(AuditRingBuffer.Slot slot) {
+        try {
+            segments.append(slot.type, slot.actor, slot.subjectId, slot.amount, slot.epochMillis);
+        } catch (IOException | RuntimeException e) {
+            dropped.increment();
+            log.error("Audit record lost: {} by {} on {}", slot.type, slot.actor, slot.subjectId, e);
+        }
+    }
+
+    private void force() {
+        long start = System.nanoTime();
+        try {
+            segments.force();
+        } catch (RuntimeException e) {
+            log.warn("Audit segment force failed", e);
+        }
+        fsyncLatency.recordSince(start);
+    }
+
+    private final class Writer extends Thread {
+
+        Writer() {
+            super("audit-writer");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long lastForce = System.nanoTime();
+            boolean unforced = false;
+            while (true) {
+                // Read before draining, so everything published before shutdown is still written
+                boolean stopping = !running;
+                int taken = ring.drain(maxBatch, AuditLog.this::write);
+                if (taken > 0) {
+                    written = segments.lastSequence();
+                    unforced = true;
+                }
+                if (unforced && (durability == Durability.BATCH
+                        || durability == Durability.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos)) {
+                    force();
+                    lastForce = System.nanoTime();
+                    unforced = false;
+                }
+                if (taken == 0) {
+                    if (stopping) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+    }
+}
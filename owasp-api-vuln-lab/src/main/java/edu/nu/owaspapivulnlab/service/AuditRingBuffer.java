@@ -0,0 +1,89 @@
+package edu.nu.owaspapivulnlab.service;
+
+import edu.nu.owaspapivulnlab.dto.AuditEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// Preallocated multi-producer, single-consumer ring of audit events. A producer claims the next sequence
+// with a CAS, failing instead when the consumer is a whole lap behind, fills the slot in place and
+// publishes it by storing the sequence in the slot's marker. The consumer takes slots in sequence order
+// for as long as they are published, then hands them all back at once by advancing its cursor.
+final class AuditRingBuffer {
+
+    private final Slot[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    // Every sequence below this has been read by the consumer; written only by the consumer
+    private volatile long consumed;
+
+    AuditRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new Slot[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            published.set(i, -1);
+        }
+        mask = size - 1;
+    }
+
+    boolean tryPublish(AuditEvent.Type type, String actor, long subjectId, double amount, long epochMillis) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        int index = (int) sequence & mask;
+        Slot slot = slots[index];
+        slot.type = type;
+        slot.actor = actor;
+        slot.subjectId = subjectId;
+        slot.amount = amount;
+        slot.epochMillis = epochMillis;
+        // Release store: the consumer that sees the marker sees the fields above
+        published.lazySet(index, sequence);
+        return true;
+    }
+
+    // Consumer side: hands up to max published slots, in order, to the handler, which must not keep them
+    int drain(int max, Consumer<Slot> handler) {
+        long next = consumed;
+        int taken = 0;
+        while (taken < max && published.get((int) next & mask) == next) {
+            Slot slot = slots[(int) next & mask];
+            handler.accept(slot);
+            slot.actor = null;
+            next++;
+            taken++;
+        }
+        if (taken > 0) {
+            consumed = next;
+        }
+        return taken;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    long claimed() {
+        return claimed.get();
+    }
+
+    long pending() {
+        return claimed.get() - consumed;
+    }
+
+    static final class Slot {
+        AuditEvent.Type type;
+        String actor;
+        long subjectId;
+        double amount;
+        long epochMillis;
+    }
+}
@@ -0,0 +1,226 @@
+package edu.nu.owaspapivulnlab.service;
+
+import edu.nu.owaspapivulnlab.dto.AuditEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// The audit log on disk: fixed-size records appended to memory-mapped segment files, each named after the
+// sequence of its first record, with a new segment started whenever the current one is full. Records carry
+// a CRC of their body, so after a crash the log ends at the first slot that is empty or does not check out,
+// and the writer carries on from there. Appending is confined to one thread; reads open the files on
+// their own and may run concurrently with it.
+final class AuditSegments implements Closeable {
+
+    static final int RECORD_BYTES = 96;
+
+    // Record layout
+    private static final int SEQUENCE = 0;
+    private static final int CRC = 8;
+    private static final int TYPE = 12;
+    private static final int AT = 16;
+    private static final int SUBJECT = 24;
+    private static final int AMOUNT = 32;
+    private static final int ACTOR_LENGTH = 40;
+    private static final int ACTOR = 41;
+    private static final int ACTOR_BYTES = RECORD_BYTES - ACTOR;
+
+    private static final Pattern SEGMENT = Pattern.compile("audit-(\\d{20})\\.seg");
+    private static final AuditEvent.Type[] TYPES = AuditEvent.Type.values();
+
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_BYTES);
+
+    private MappedByteBuffer current;
+    private int capacity;
+    private int position;
+    private long nextSequence;
+
+    AuditSegments(Path dir, long segmentBytes) throws IOException {
+        this.dir = dir;
+        this.recordsPerSegment = (int) Math.max(1, Math.min(Integer.MAX_VALUE / RECORD_BYTES, segmentBytes / RECORD_BYTES));
+        Files.createDirectories(dir);
+        lockChannel = FileChannel.open(dir.resolve("audit.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IOException("Audit directory " + dir + " is in use by another writer");
+        }
+        lock = acquired;
+
+        List<Long> firsts = firstSequences(dir);
+        if (firsts.isEmpty()) {
+            open(1, recordsPerSegment);
+            return;
+        }
+        // Recover the end of the log; a segment keeps the size it was created with
+        long first = firsts.get(firsts.size() - 1);
+        open(first, (int) (Files.size(segment(first)) / RECORD_BYTES));
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        while (position < capacity) {
+            current.get(position * RECORD_BYTES, record.array());
+            if (decode(record, first + position) == null) {
+                break;
+            }
+            position++;
+        }
+        nextSequence = first + position;
+    }
+
+    // Returns the sequence given to the record
+    long append(AuditEvent.Type type, String actor, long subjectId, double amount, long epochMillis) throws IOException {
+        if (position == capacity) {
+            current.force();
+            open(nextSequence, recordsPerSegment);
+        }
+        long sequence = nextSequence;
+        byte[] name = actor.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(name.length, ACTOR_BYTES);
+        while (length < name.length && length > 0 && (name[length] & 0xC0) == 0x80) {
+            length--; // don't cut a character in half
+        }
+        ByteBuffer record = scratch;
+        record.clear();
+        record.putLong(SEQUENCE, sequence)
+                .putInt(TYPE, type.ordinal())
+                .putLong(AT, epochMillis)
+                .putLong(SUBJECT, subjectId)
+                .putDouble(AMOUNT, amount)
+                .put(ACTOR_LENGTH, (byte) length)
+                .put(ACTOR, name, 0, length);
+        Arrays.fill(record.array(), ACTOR + length, RECORD_BYTES, (byte) 0);
+        record.putInt(CRC, checksum(record));
+        current.put(position * RECORD_BYTES, record.array());
+        position++;
+        nextSequence++;
+        return sequence;
+    }
+
+    void force() {
+        current.force();
+    }
+
+    long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            current.force();
+        } finally {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    // Up to limit records from 'from' on, stopping at the end of what has been written
+    static List<AuditEvent> read(Path dir, long from, int limit) throws IOException {
+        List<AuditEvent> events = new ArrayList<>(Math.min(limit, 1024));
+        List<Long> firsts = firstSequences(dir);
+        int start = firsts.size() - 1;
+        while (start > 0 && firsts.get(start) > from) {
+            start--;
+        }
+        long sequence = Math.max(from, 1);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        for (int i = Math.max(start, 0); i < firsts.size() && events.size() < limit; i++) {
+            long first = firsts.get(i);
+            if (sequence < first) {
+                return events; // records before the oldest segment kept
+            }
+            try (FileChannel channel = FileChannel.open(segment(dir, first), StandardOpenOption.READ)) {
+                long records = channel.size() / RECORD_BYTES;
+                for (long slot = sequence - first; slot < records && events.size() < limit; slot++) {
+                    record.clear();
+                    while (record.hasRemaining() && channel.read(record, slot * RECORD_BYTES + record.position()) > 0) {
+                        // read the whole record
+                    }
+                    AuditEvent event = record.hasRemaining() ? null : decode(record, sequence);
+                    if (event == null) {
+                        return events;
+                    }
+                    events.add(event);
+                    sequence++;
+                }
+            }
+        }
+        return events;
+    }
+
+    private static AuditEvent decode(ByteBuffer record, long expectedSequence) {
+        if (record.getLong(SEQUENCE) != expectedSequence || record.getInt(CRC) != checksum(record)) {
+            return null;
+        }
+        int type = record.getInt(TYPE);
+        int length = record.get(ACTOR_LENGTH);
+        if (type < 0 || type >= TYPES.length || length < 0 || length > ACTOR_BYTES) {
+            return null;
+        }
+        return new AuditEvent(expectedSequence, Instant.ofEpochMilli(record.getLong(AT)), TYPES[type],
+                new String(record.array(), ACTOR, length, StandardCharsets.UTF_8),
+                record.getLong(SUBJECT), record.getDouble(AMOUNT));
+    }
+
+    // Covers everything after the checksum, the sequence included
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), SEQUENCE, CRC);
+        crc.update(record.array(), TYPE, RECORD_BYTES - TYPE);
+        return (int) crc.getValue();
+    }
+
+    private void open(long first, int records) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment(first), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping outlives the channel; a new file is extended to its full size here
+            current = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * RECORD_BYTES);
+        }
+        capacity = records;
+        position = 0;
+        nextSequence = first;
+    }
+
+    private Path segment(long first) {
+        return segment(dir, first);
+    }
+
+    private static Path segment(Path dir, long first) {
+        return dir.resolve(String.format("audit-%020d.seg", first));
+    }
+
+    private static List<Long> firstSequences(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> SEGMENT.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(m -> Long.parseLong(m.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package edu.nu.owaspapivulnlab.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.dto.BatchItemResult;
+import edu.nu.owaspapivulnlab.dto.BatchResult;
+import edu.nu.owaspapivulnlab.exception.InvalidRequestException;
+import edu.nu.owaspapivulnlab.exception.ServiceOverloadedException;
+import edu.nu.owaspapivulnlab.exception.TransferPendingException;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+// Bulk endpoints read the request array one element at a time, so a large batch is never held as a
+// whole. Users are validated as they arrive and written in chunks of the JDBC batch size, each chunk
+// one transaction and one batched insert; transfers are handed to the transfer engine as they are read.
+@Service
+public class BatchService {
+
+    private final ObjectMapper mapper;
+    private final Validator validator;
+    private final AppUserRepository users;
+    private final PasswordHashingService passwords;
+    private final UserSearchIndex searchIndex;
+    private final TransferEngine transfers;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public BatchService(ObjectMapper mapper, Validator validator, AppUserRepository users,
+                        PasswordHashingService passwords, UserSearchIndex searchIndex, TransferEngine transfers,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int chunkSize,
+                        @Value("${app.batch.max-items:10000}") int maxItems) {
+        this.mapper = mapper;
+        this.validator = validator;
+        this.users = users;
+        this.passwords = passwords;
+        this.searchIndex = searchIndex;
+        this.transfers = transfers;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    // VULNERABILITY(API6: Mass Assignment) - like the single create, role/isAdmin are taken from the body.
+    // Unlike it, ids are not: every item is a new user, so a batch cannot save over (and rename) anyone.
+    public BatchResult createUsers(InputStream json) throws IOException {
+        List<BatchItemResult> results = new ArrayList<>();
+        Map<Integer, AppUser> chunk = new LinkedHashMap<>();
+        boolean truncated = read(json, results, (index, node) -> {
+            AppUser user = mapper.treeToValue(node, AppUser.class);
+            user.setId(null);
+            user.setVersion(null);
+            String invalid = violations(user);
+            if (invalid != null) {
+                results.add(BatchItemResult.failed(index, "invalid", invalid));
+                return;
+            }
+            chunk.put(index, user);
+            if (chunk.size() == chunkSize) {
+                persist(chunk, results);
+                chunk.clear();
+            }
+        });
+        persist(chunk, results);
+        results.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+        return new BatchResult(results, truncated);
+    }
+
+    // VULNERABILITY(API1: BOLA) - as with the single transfer, any account can be debited
+    // Each transfer is audited under the caller's name by the engine, once committed
+    public BatchResult transfer(InputStream json, String actor) throws IOException {
+        List<BatchItemResult> results = new ArrayList<>();
+        Map<Integer, CompletableFuture<Double>> pending = new LinkedHashMap<>();
+        Map<Integer, Long> accounts = new LinkedHashMap<>();
+        boolean truncated = read(json, results, (index, node) -> {
+            JsonNode accountId = node.get("accountId");
+            JsonNode amount = node.get("amount");
+            if (accountId == null || !accountId.canConvertToLong() || amount == null || !amount.isNumber()
+                    || !Double.isFinite(amount.asDouble())) {
+                results.add(BatchItemResult.failed(index, "invalid", "accountId and a numeric amount are required"));
+                return;
+            }
+            accounts.put(index, accountId.asLong());
+            pending.put(index, transfers.submit(accountId.asLong(), amount.asDouble(), actor));
+        });
+        pending.forEach((index, result) -> {
+            try {
+                results.add(BatchItemResult.transferred(index, accounts.get(index), transfers.await(result)));
+            } catch (ServiceOverloadedException e) {
+                // Withdrawn from the queue: not applied, safe to resubmit
+                results.add(BatchItemResult.failed(index, "overloaded", e.getMessage()));
+            } catch (TransferPendingException e) {
+                results.add(BatchItemResult.failed(index, "pending", e.getMessage()));
+            } catch (RuntimeException e) {
+                results.add(BatchItemResult.failed(index, "failed", e.getMessage()));
+            }
+        });
+        results.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+        return new BatchResult(results, truncated);
+    }
+
+    // Returns true when reading stopped at maxItems with elements left over
+    private boolean read(InputStream json, List<BatchItemResult> results, ItemHandler handler) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidRequestException("Expected a JSON array");
+            }
+            int index = 0;
+            try {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (index == maxItems) {
+                        return true;
+                    }
+                    JsonNode node = mapper.readTree(parser);
+                    try {
+                        handler.handle(index, node);
+                    } catch (JsonProcessingException e) {
+                        results.add(BatchItemResult.failed(index, "invalid", e.getOriginalMessage()));
+                    }
+                    index++;
+                }
+            } catch (JsonProcessingException e) {
+                // Everything before the syntax error has been handled; nothing after it can be read
+                results.add(BatchItemResult.failed(index, "malformed", e.getOriginalMessage()));
+            }
+            return false;
+        }
+    }
+
+    private void persist(Map<Integer, AppUser> chunk, List<BatchItemResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<Integer, AppUser> fresh = withoutDuplicates(chunk, results);
+        if (fresh.isEmpty()) {
+            return;
+        }
+        List<String> hashes = passwords.hashAll(fresh.values().stream().map(AppUser::getPassword).toList());
+        int i = 0;
+        for (Iterator<Map.Entry<Integer, AppUser>> it = fresh.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, AppUser> item = it.next();
+            String hash = hashes.get(i++);
+            if (hash == null) {
+                // Hashing saturated by other callers: this item alone is reported, the rest go ahead
+                results.add(BatchItemResult.failed(item.getKey(), "overloaded", "password hashing is saturated, retry this item"));
+                it.remove();
+            } else {
+                item.getValue().setPassword(hash);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> users.saveAll(fresh.values()));
+            fresh.forEach((index, user) -> created(index, user, results));
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with another writer, or a value the table refuses: fall back to one transaction
+            // per user to find the culprit
+            fresh.forEach((index, user) -> {
+                // The failed saveAll assigned an id and version 0; with either set, save() would merge
+                // into a copy instead of inserting this entity
+                user.setId(null);
+                user.setVersion(null);
+                try {
+                    AppUser saved = tx.execute(status -> users.save(user));
+                    created(index, saved, results);
+                } catch (DataIntegrityViolationException rejected) {
+                    results.add(BatchItemResult.failed(index, "rejected",
+                            "username or email already exists, or a value does not fit its column"));
+                }
+            });
+        }
+    }
+
+    private void created(int index, AppUser user, List<BatchItemResult> results) {
+        searchIndex.add(user);
+        results.add(BatchItemResult.created(index, user.getId()));
+    }
+
+    // Drops users whose username or email is already taken, in the table or earlier in the chunk
+    private Map<Integer, AppUser> withoutDuplicates(Map<Integer, AppUser> chunk, List<BatchItemResult> results) {
+        Set<String> takenNames = new HashSet<>(users.findExistingUsernames(
+                chunk.values().stream().map(AppUser::getUsername).collect(Collectors.toSet())));
+        Set<String> takenEmails = new HashSet<>(users.findExistingEmails(
+                chunk.values().stream().map(AppUser::getEmail).filter(e -> e != null).collect(Collectors.toSet())));
+        Map<Integer, AppUser> fresh = new LinkedHashMap<>();
+        chunk.forEach((index, user) -> {
+            if (takenNames.contains(user.getUsername())) {
+                results.add(BatchItemResult.failed(index, "duplicate", "username already exists"));
+            } else if (user.getEmail() != null && takenEmails.contains(user.getEmail())) {
+                results.add(BatchItemResult.failed(index, "duplicate", "email already exists"));
+            } else {
+                takenNames.add(user.getUsername());
+                if (user.getEmail() != null) {
+                    takenEmails.add(user.getEmail());
+                }
+                fresh.put(index, user);
+            }
+        });
+        return fresh;
+    }
+
+    private String violations(AppUser user) {
+        Set<ConstraintViolation<AppUser>> violations = validator.validate(user);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    @FunctionalInterface
+    private interface ItemHandler {
+        void handle(int index, JsonNode node) throws JsonProcessingException;
+    }
+}
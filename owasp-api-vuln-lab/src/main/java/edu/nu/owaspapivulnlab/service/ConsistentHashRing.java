@@ -0,0 +1,55 @@
+package edu.nu.owaspapivulnlab.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+// Consistent hashing of long keys onto n shards: every shard owns virtualNodes points on a 64-bit ring and
+// a key belongs to the first point at or after its hash. Going from n to n + 1 shards only moves the keys
+// whose next point now belongs to the new shard, about 1/(n + 1) of them, where key % n would move most.
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(int shards, int virtualNodes) {
+        if (shards < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Need at least one shard and one virtual node per shard");
+        }
+        int size = shards * virtualNodes;
+        long[] hashes = new long[size];
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                hashes[shard * virtualNodes + node] = mix(((long) shard << 32) | node);
+            }
+        }
+        int[] order = IntStream.range(0, size).boxed()
+                .sorted(Comparator.comparingLong(i -> hashes[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        points = new long[size];
+        owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    public int shardOf(long key) {
+        int index = Arrays.binarySearch(points, mix(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    // MurmurHash3's 64-bit finalizer: sequential ids land all over the ring
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,32 +1,133 @@
 package edu.nu.owaspapivulnlab.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String secret;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long ttlSeconds;
 
-    @Value("${app.jwt.ttl-seconds}")
-    private long ttlSeconds;
+    // Verified claims keyed by SHA-256 of the compact token; entries never outlive the token's exp
+    private final Cache<String, Claims> verified;
+
+    public JwtService(@Value("${app.jwt.secret}") String secret,
+                      @Value("${app.jwt.ttl-seconds}") long ttlSeconds,
+                      @Value("${app.jwt.cache.max-size:10000}") long cacheMaxSize,
+                      @Value("${app.jwt.cache.max-ttl-seconds:300}") long cacheMaxTtlSeconds) {
+        this.signingKey = signingKey(secret);
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.ttlSeconds = ttlSeconds;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilExpiration(TimeUnit.SECONDS.toNanos(cacheMaxTtlSeconds)))
+                .recordStats()
+                .build();
+    }
 
     // VULNERABILITY(API8): HS256 with trivial key, long TTL, missing issuer/audience
+    // The random jti is what TokenRevocationService lists when the token is revoked
     public String issue(String subject, Map<String, Object> claims) {
         long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setSubject(subject)
                 .addClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + ttlSeconds * 1000))
-                .signWith(SignatureAlgorithm.HS256, secret.getBytes())
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
+
+    // Checks signature and exp; repeated presentations of the same token are served from the cache
+    public Claims verify(String token) {
+        String digest = digest(token);
+        Claims claims = verified.getIfPresent(digest);
+        if (claims != null) {
+            return claims;
+        }
+        claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token has no expiration");
+        }
+        verified.put(digest, claims);
+        return claims;
+    }
+
+    public CacheStats cacheStats() {
+        return verified.stats();
+    }
+
+    public long cacheSize() {
+        return verified.estimatedSize();
+    }
+
+    // VULNERABILITY(API8): the key is still derived from the trivial configured secret; short secrets
+    // are stretched with SHA-256 only to satisfy the 256-bit minimum jjwt enforces for HS256
+    private static SecretKey signingKey(String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            bytes = sha256(bytes);
+        }
+        return Keys.hmacShaKeyFor(bytes);
+    }
+
+    private static String digest(String token) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sha256(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class UntilExpiration implements Expiry<String, Claims> {
+        private final long maxNanos;
+
+        UntilExpiration(long maxNanos) {
+            this.maxNanos = maxNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, Math.min(maxNanos, TimeUnit.MILLISECONDS.toNanos(remainingMs)));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
-// Added issuer and audience validation for JWT
@@ -0,0 +1,174 @@
+package edu.nu.owaspapivulnlab.service;
+
+import edu.nu.owaspapivulnlab.model.BalanceSnapshot;
+import edu.nu.owaspapivulnlab.model.LedgerEntry;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.BalanceSnapshotRepository;
+import edu.nu.owaspapivulnlab.repo.LedgerEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Balances are the latest snapshot (or the account's opening balance) plus the entries after it.
+// Snapshots assume a single writer per account, which TransferEngine's partitioning guarantees:
+// an account's entries then commit in id order, so no entry below a snapshot's lastEntryId can
+// still be in flight when the snapshot is taken. Entry ids come from each shard's own sequence, so
+// compaction keeps a watermark per shard. Across accounts, ids do not commit in order: the partitions
+// share the sequence, and a batch holding lower ids can commit after one holding higher ids. The
+// watermark therefore never passes an append that may still commit, see compact(int).
+@Service
+public class LedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    private final LedgerEntryRepository entries;
+    private final BalanceSnapshotRepository snapshots;
+    private final AccountRepository accounts;
+    private final AccountShards shards;
+    private final TransactionTemplate tx;
+
+    private final ShardProgress[] progress;
+
+    public LedgerService(LedgerEntryRepository entries, BalanceSnapshotRepository snapshots, AccountRepository accounts,
+                         AccountShards shards, PlatformTransactionManager transactionManager) {
+        this.entries = entries;
+        this.snapshots = snapshots;
+        this.accounts = accounts;
+        this.shards = shards;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.progress = new ShardProgress[shards.count()];
+        for (int shard = 0; shard < progress.length; shard++) {
+            progress[shard] = new ShardProgress();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Double> balance(Long accountId) {
+        return position(accountId).map(Position::balance);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Position> position(Long accountId) {
+        Optional<BalanceSnapshot> snapshot = snapshots.findFirstByAccountIdOrderByLastEntryIdDesc(accountId);
+        if (snapshot.isPresent()) {
+            return Optional.of(catchUp(accountId,
+                    new Position(snapshot.get().getBalance(), snapshot.get().getLastEntryId())));
+        }
+        return accounts.findOpeningBalanceById(accountId)
+                .map(opening -> catchUp(accountId, new Position(opening, 0L)));
+    }
+
+    // Applies only the entries appended after a position the caller already knows
+    @Transactional(readOnly = true)
+    public Position catchUp(Long accountId, Position known) {
+        LedgerEntryRepository.Tail tail = entries.findTailAfter(accountId, known.lastEntryId());
+        return tail.getLastEntryId() == null
+                ? known
+                : new Position(known.balance() + tail.getTotal(), tail.getLastEntryId());
+    }
+
+    // Joins the caller's transaction; with hibernate.jdbc.batch_size set the rows go out as one batch.
+    // The append stays open for compaction until that transaction completes.
+    @Transactional
+    public void append(List<LedgerEntry> batch) {
+        ShardProgress shard = progress[AccountShards.current()];
+        Object open = new Object();
+        // Registered before the ids are handed out, which they are in increasing order: every id this
+        // batch gets is above the highest one appended so far
+        shard.open.put(open, shard.appended.get());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                shard.open.remove(open);
+            }
+        });
+        entries.saveAll(batch);
+        for (LedgerEntry entry : batch) {
+            shard.appended.accumulateAndGet(entry.getId(), Math::max);
+        }
+    }
+
+    // Balance including every entry up to and including lastEntryId
+    public record Position(double balance, long lastEntryId) {
+    }
+
+    public static LedgerEntry debit(Long accountId, double amount, Instant at) {
+        return LedgerEntry.builder().accountId(accountId).amount(-amount).createdAt(at).build();
+    }
+
+    // Snapshots every account that received entries since the previous pass, all shards at once
+    @Scheduled(fixedDelayString = "${app.ledger.snapshot-interval-ms:60000}",
+            initialDelayString = "${app.ledger.snapshot-interval-ms:60000}")
+    public synchronized int compact() {
+        return shards.fanOut(shard -> tx.execute(status -> compact(shard))).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // Every entry at or below the watermark is committed and was seen by a pass. Entries above it that
+    // are already visible get their snapshot now and are looked at again next pass, which skips the
+    // accounts whose snapshot is current.
+    private int compact(int shard) {
+        ShardProgress state = progress[shard];
+        long watermark = state.compactedUpTo;
+        if (state.appended.get() == 0) {
+            // Nothing appended by this instance yet: entries already committed were handed out before now
+            state.appended.accumulateAndGet(entries.findMaxId(), Math::max);
+        }
+        // Ids up to this one were handed out before now, so their appends either completed already and
+        // are visible to the query below, or are still open and hold the limit under their ids
+        long limit = state.appended.get();
+        for (long floor : state.open.values()) {
+            limit = Math.min(limit, floor);
+        }
+        long highest = watermark;
+        List<BalanceSnapshot> taken = new ArrayList<>();
+        Instant now = Instant.now();
+        for (LedgerEntryRepository.AccountHead head : entries.findHeadsAfter(watermark)) {
+            Long accountId = head.getAccountId();
+            highest = Math.max(highest, head.getLastEntryId());
+            Optional<BalanceSnapshot> previous = snapshots.findFirstByAccountIdOrderByLastEntryIdDesc(accountId);
+            long from = previous.map(BalanceSnapshot::getLastEntryId).orElse(0L);
+            Optional<Double> base = previous.isPresent()
+                    ? Optional.of(previous.get().getBalance())
+                    : accounts.findOpeningBalanceById(accountId);
+            if (base.isEmpty() || from >= head.getLastEntryId()) {
+                continue;
+            }
+            taken.add(BalanceSnapshot.builder()
+                    .accountId(accountId)
+                    .balance(base.get() + entries.sumBetween(accountId, from, head.getLastEntryId()))
+                    .lastEntryId(head.getLastEntryId())
+                    .takenAt(now)
+                    .build());
+        }
+        snapshots.saveAll(taken);
+        state.compactedUpTo = Math.max(watermark, Math.min(highest, limit));
+        if (!taken.isEmpty()) {
+            log.debug("Ledger compaction wrote {} snapshots on shard {}, watermark now {}", taken.size(), shard,
+                    state.compactedUpTo);
+        }
+        return taken.size();
+    }
+
+    private static final class ShardProgress {
+        // Highest entry id appended on this instance; appends in transactions not yet completed and
+        // the highest id at the time each one started
+        final AtomicLong appended = new AtomicLong();
+        final Map<Object, Long> open = new ConcurrentHashMap<>();
+        // Highest entry id already covered by a compaction pass on this instance; compact() is synchronized
+        long compactedUpTo;
+    }
+}
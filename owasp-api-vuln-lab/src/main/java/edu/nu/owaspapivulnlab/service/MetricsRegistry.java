@@ -0,0 +1,144 @@
+package edu.nu.owaspapivulnlab.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+// Named metric families rendered in the Prometheus text format. Looking a series up renders its
+// labels, so hot paths resolve their histogram or counter once and keep the reference; the values
+// themselves are lock-free and are only read when a scrape renders them.
+@Service
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    // Labels are name/value pairs: histogram("x_seconds", "help", "route", "/a", "method", "GET")
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, Type.SUMMARY).series
+                .computeIfAbsent(render(labels), l -> new LatencyHistogram());
+    }
+
+    // Publishes a histogram owned by another component under this registry
+    public void register(String name, String help, LatencyHistogram histogram, String... labels) {
+        family(name, help, Type.SUMMARY).series.put(render(labels), histogram);
+    }
+
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, Type.COUNTER).series
+                .computeIfAbsent(render(labels), l -> new LongAdder());
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series.put(render(labels), value);
+    }
+
+    // Counters kept elsewhere, one series per key of the supplied map
+    public void counters(String name, String help, String label, Supplier<Map<String, Long>> values) {
+        family(name, help, Type.COUNTER).series.put(label, values);
+    }
+
+    public void writePrometheus(StringBuilder out) {
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                write(out, family.name, series.getKey(), series.getValue());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void write(StringBuilder out, String name, String labels, Object metric) {
+        if (metric instanceof LatencyHistogram histogram) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            for (double q : QUANTILES) {
+                line(out, name, withLabel(labels, "quantile", Double.toString(q)), snapshot.valueAt(q) / 1e9);
+            }
+            line(out, name + "_sum", labels, snapshot.sumNanos() / 1e9);
+            line(out, name + "_count", labels, snapshot.count());
+        } else if (metric instanceof LongAdder counter) {
+            line(out, name, labels, counter.sum());
+        } else if (metric instanceof DoubleSupplier gauge) {
+            line(out, name, labels, gauge.getAsDouble());
+        } else if (metric instanceof Supplier<?> supplier) {
+            // Registered by counters(): the key is the label name rather than a rendered label set
+            ((Map<String, Long>) supplier.get()).forEach((value, count) ->
+                    line(out, name, render(new String[]{labels, value}), count));
+        }
+    }
+
+    private static void line(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type.text);
+        }
+        return family;
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        String pair = name + "=\"" + value + '"';
+        return labels.isEmpty() ? "{" + pair + "}" : labels.substring(0, labels.length() - 1) + "," + pair + "}";
+    }
+
+    private static String render(String[] labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return out.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), SUMMARY("summary");
+
+        final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        // Rendered label set -> metric; sorted so scrapes are stable
+        final ConcurrentMap<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
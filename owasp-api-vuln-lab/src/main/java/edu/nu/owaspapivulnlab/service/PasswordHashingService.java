@@ -0,0 +1,212 @@
+package edu.nu.owaspapivulnlab.service;
+
+import edu.nu.owaspapivulnlab.exception.ServiceOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// All BCrypt work runs on a fixed pool sized to the CPU count with a short bounded queue, so a login
+// burst can only occupy that many cores; when the queue is full callers get a 503 straight away
+// instead of tying up request threads. The cost factor is calibrated once at startup so that one
+// hash takes roughly the configured target time on this machine.
+@Service
+public class PasswordHashingService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+
+    private final ThreadPoolExecutor executor;
+    private final BCryptPasswordEncoder encoder;
+    private final int cost;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+
+    public PasswordHashingService(@Value("${app.password.threads:0}") int threads,
+                                  @Value("${app.password.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.password.bcrypt-cost:0}") int fixedCost,
+                                  @Value("${app.password.target-millis:100}") long targetMillis,
+                                  @Value("${app.password.min-cost:10}") int minCost,
+                                  @Value("${app.password.max-cost:16}") int maxCost) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hash-" + index.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.cost = fixedCost > 0 ? fixedCost : calibrate(targetMillis, minCost, maxCost);
+        this.encoder = new BCryptPasswordEncoder(cost);
+        log.info("Password hashing: bcrypt cost {}, {} threads, queue {}", cost, poolSize, queueCapacity);
+    }
+
+    // Result of a login check; upgradedHash is set when the stored value should be replaced
+    public record Verification(boolean matched, String upgradedHash) {
+    }
+
+    public String hash(String raw) {
+        return run(() -> encoder.encode(raw));
+    }
+
+    // Keeps as much of the batch queued as the pool accepts, so it uses every hashing thread; when the
+    // queue is full it waits for the batch's oldest hash before queueing more. An entry is null only
+    // when the queue is full of other callers' work and none of the batch's own is left to wait for.
+    public List<String> hashAll(List<String> raw) {
+        String[] hashes = new String[raw.size()];
+        ArrayDeque<Integer> queued = new ArrayDeque<>();
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        for (int i = 0; i < raw.size(); i++) {
+            String password = raw.get(i);
+            Future<String> future;
+            while ((future = trySubmit(() -> encoder.encode(password))) == null && !pending.isEmpty()) {
+                hashes[queued.poll()] = await(pending.poll());
+            }
+            if (future == null) {
+                rejected.increment();
+            } else {
+                queued.add(i);
+                pending.add(future);
+            }
+        }
+        while (!pending.isEmpty()) {
+            hashes[queued.poll()] = await(pending.poll());
+        }
+        return Arrays.asList(hashes);
+    }
+
+    // Accepts BCrypt hashes of any cost and legacy plaintext; on a match, anything that is not a
+    // BCrypt hash at the current cost is re-hashed so the caller can store the upgrade
+    public Verification verify(String raw, String stored) {
+        return run(() -> {
+            if (stored == null || raw == null) {
+                return new Verification(false, null);
+            }
+            boolean bcrypt = BCRYPT.matcher(stored).matches();
+            boolean matched = bcrypt
+                    ? encoder.matches(raw, stored)
+                    : MessageDigest.isEqual(raw.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+            if (!matched || (bcrypt && !encoder.upgradeEncoding(stored))) {
+                return new Verification(matched, null);
+            }
+            rehashed.increment();
+            return new Verification(true, encoder.encode(raw));
+        });
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeHashes() {
+        return executor.getActiveCount();
+    }
+
+    // Operations (hash or verify) executed on the pool, timed on the hashing thread
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    public long rejections() {
+        return rejected.sum();
+    }
+
+    public long rehashes() {
+        return rehashed.sum();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        return await(submit(task));
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        Future<T> future = trySubmit(task);
+        if (future == null) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Password hashing is saturated, retry shortly");
+        }
+        return future;
+    }
+
+    // null when the queue is full
+    private <T> Future<T> trySubmit(Callable<T> task) {
+        try {
+            return executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    latency.recordSince(start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    // Each cost step doubles the work, so stop at the highest cost still within the target
+    private static int calibrate(long targetMillis, int minCost, int maxCost) {
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        int chosen = minCost;
+        new BCryptPasswordEncoder(minCost).encode("warm-up");
+        for (int c = minCost; c <= maxCost; c++) {
+            BCryptPasswordEncoder probe = new BCryptPasswordEncoder(c);
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            long elapsed = System.nanoTime() - start;
+            if (elapsed > targetNanos) {
+                break;
+            }
+            chosen = c;
+            if (elapsed * 2 > targetNanos) {
+                break;
+            }
+        }
+        return chosen;
+    }
+}
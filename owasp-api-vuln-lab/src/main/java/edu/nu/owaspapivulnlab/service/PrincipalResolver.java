@@ -0,0 +1,58 @@
+package edu.nu.owaspapivulnlab.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import edu.nu.owaspapivulnlab.dto.AuthenticatedUser;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+// Turns the authenticated principal into a user id. Tokens with the uid claim carry it already; for
+// older tokens the id is looked up by username once and kept in a bounded cache. Tokens issued before a
+// delete (uid claim included) stay valid until they expire, so whether the id still exists is checked
+// against the users table once and cached, bounded as well; ids are never reused, so "gone" is final.
+// Deleted users stop resolving right away.
+@Service
+public class PrincipalResolver {
+
+    private final AppUserRepository users;
+    private final Cache<String, Long> ids;
+    private final Cache<Long, Boolean> exists;
+
+    public PrincipalResolver(AppUserRepository users,
+                             @Value("${app.auth.principal-cache.max-size:100000}") long maxSize) {
+        this.users = users;
+        this.ids = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.exists = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public Optional<Long> userId(Authentication auth) {
+        if (auth == null) {
+            return Optional.empty();
+        }
+        Long id = auth.getPrincipal() instanceof AuthenticatedUser user && user.id() != null
+                ? user.id()
+                // An unknown name is not cached: the user may be created later
+                : ids.get(auth.getName(), name -> users.findIdByUsername(name).orElse(null));
+        return id == null || !exists.get(id, users::existsById) ? Optional.empty() : Optional.of(id);
+    }
+
+    // A save over an existing id may have renamed the user
+    public void userChanged(long id) {
+        ids.asMap().values().removeIf(cached -> cached == id);
+    }
+
+    // Called once the delete has committed; a check that read the row before then is replaced
+    public void userDeleted(long id) {
+        exists.put(id, Boolean.FALSE);
+        userChanged(id);
+    }
+
+    public CacheStats stats() {
+        return ids.stats();
+    }
+}
@@ -0,0 +1,109 @@
+package edu.nu.owaspapivulnlab.service;
+
+import edu.nu.owaspapivulnlab.model.RevokedToken;
+import edu.nu.owaspapivulnlab.repo.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Denylist of revoked token ids (jti), each kept in the database until the token's own exp. Every
+// authenticated request asks isRevoked, so a Bloom filter of the listed ids answers first: a miss is
+// definite and costs a few hashes; only a hit (a revoked token, or a false positive at about the
+// configured rate) goes to the table. Other instances' revocations reach this filter at the next rebuild.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revoked;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Non-null while a rebuild is reading the table; revocations made meanwhile are added to both
+    private volatile BloomFilter next;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public TokenRevocationService(RevokedTokenRepository revoked,
+                                  @Value("${app.jwt.revocation.expected-entries:100000}") long expectedEntries,
+                                  @Value("${app.jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revoked = revoked;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        rebuild();
+    }
+
+    // Tokens issued without a jti cannot be listed and are never revoked
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        lookups.increment();
+        if (!filter.mightContain(jti)) {
+            return false;
+        }
+        filterHits.increment();
+        boolean listed = revoked.existsByJtiAndExpiresAtAfter(jti, Instant.now());
+        if (!listed) {
+            falsePositives.increment();
+        }
+        return listed;
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        revoked.save(RevokedToken.builder().jti(jti).expiresAt(expiresAt).build());
+        // After the commit, and next before filter: a rebuild that publishes next after this read queries
+        // the table after the commit and finds the row; one that published it earlier gets the add. Read
+        // the other way round, a rebuild could swap filters between the two adds and lose the jti.
+        BloomFilter rebuilding = next;
+        if (rebuilding != null) {
+            rebuilding.add(jti);
+        }
+        filter.add(jti);
+    }
+
+    // Drops expired entries from the table and replaces the filter with one holding only the live ones,
+    // sized for twice that many so it stays near the target rate until the next pass
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.rebuild-interval-ms:60000}",
+            initialDelayString = "${app.jwt.revocation.rebuild-interval-ms:60000}")
+    public synchronized void rebuild() {
+        Instant now = Instant.now();
+        int purged = revoked.deleteExpired(now);
+        long live = revoked.count();
+        BloomFilter fresh = new BloomFilter(Math.max(expectedEntries, live * 2), falsePositiveRate);
+        // Published before the query, see revoke
+        next = fresh;
+        List<String> active = revoked.findActiveJtis(now);
+        active.forEach(fresh::add);
+        filter = fresh;
+        next = null;
+        if (purged > 0 || !active.isEmpty()) {
+            log.debug("Revocation filter rebuilt with {} entries, {} expired entries purged", active.size(), purged);
+        }
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    public long filterHits() {
+        return filterHits.sum();
+    }
+
+    public long falsePositives() {
+        return falsePositives.sum();
+    }
+
+    public double filterFillRatio() {
+        return filter.fillRatio();
+    }
+}
@@ -0,0 +1,301 @@
+package edu.nu.owaspapivulnlab.service;
+
+import edu.nu.owaspapivulnlab.exception.NotFoundException;
+import edu.nu.owaspapivulnlab.exception.ServiceOverloadedException;
+import edu.nu.owaspapivulnlab.exception.TransferPendingException;
+import edu.nu.owaspapivulnlab.model.LedgerEntry;
+import edu.nu.owaspapivulnlab.service.LedgerService.Position;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Every account is owned by exactly one partition thread, so writes to an account are serialized
+// without a global lock. Each shard gets its own set of partitions, so a partition's transactions
+// only ever touch one database. Each partition drains whatever has queued up and commits it as one
+// transaction: one ledger read per account and a single batched insert of ledger entries. A
+// partition remembers the last committed position of the accounts it owns, so that read only
+// covers entries it has not seen yet. Callers wait at most app.transfer.timeout-ms for the outcome; a
+// transfer still queued by then is withdrawn and never applied. A failed batch, whatever the failure,
+// fails its transfers and leaves the partition running. Each transfer is audited by its partition right
+// after its batch commits, whether or not the caller is still waiting for it.
+@Service
+public class TransferEngine implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferEngine.class);
+    private static final String NOT_APPLIED = "Transfer not applied, the transfer engine is saturated";
+
+    private final LedgerService ledger;
+    private final AccountCache cache;
+    private final AccountShards shards;
+    private final AuditLog audit;
+    private final TransactionTemplate tx;
+    private final Partition[] partitions;
+    private final int partitionsPerShard;
+    private final int maxBatch;
+    private final int positionsPerPartition;
+    private final long timeoutMillis;
+    private volatile boolean closed;
+
+    public TransferEngine(LedgerService ledger, AccountCache cache, AccountShards shards, AuditLog audit,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.transfer.partitions:8}") int partitions,
+                          @Value("${app.transfer.max-batch:256}") int maxBatch,
+                          @Value("${app.transfer.positions-per-partition:10000}") int positionsPerPartition,
+                          @Value("${app.transfer.timeout-ms:30000}") long timeoutMillis) {
+        this.ledger = ledger;
+        this.cache = cache;
+        this.shards = shards;
+        this.audit = audit;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.maxBatch = maxBatch;
+        this.positionsPerPartition = positionsPerPartition;
+        this.timeoutMillis = timeoutMillis;
+        this.partitionsPerShard = partitions;
+        this.partitions = new Partition[shards.count() * partitions];
+        for (int i = 0; i < this.partitions.length; i++) {
+            this.partitions[i] = new Partition(i, i / partitions);
+            this.partitions[i].start();
+        }
+    }
+
+    // Completes with the balance remaining after this transfer; audited as the given actor once committed
+    public CompletableFuture<Double> submit(Long accountId, double amount, String actor) {
+        Transfer transfer = new Transfer(accountId, amount, actor);
+        int shard = shards.shardOfAccount(accountId);
+        if (shard < 0) {
+            transfer.result.completeExceptionally(new NotFoundException("Account not found"));
+            return transfer.result;
+        }
+        Partition partition = partitions[shard * partitionsPerShard
+                + Math.floorMod(Long.hashCode(accountId), partitionsPerShard)];
+        transfer.partition = partition;
+        partition.queue.add(transfer);
+        if (closed) {
+            // Raced with destroy(), which may already have drained this queue
+            partition.failQueued();
+        }
+        return transfer.result;
+    }
+
+    public double transfer(Long accountId, double amount, String actor) {
+        return await(submit(accountId, amount, actor));
+    }
+
+    // For callers acting on nobody's behalf, such as benchmarks; audited as "system"
+    public CompletableFuture<Double> submit(Long accountId, double amount) {
+        return submit(accountId, amount, "system");
+    }
+
+    public double transfer(Long accountId, double amount) {
+        return transfer(accountId, amount, "system");
+    }
+
+    // On timeout a transfer still in its queue is taken out, so it is safe to retry; one its partition
+    // has already picked up may yet commit, and the caller is told the outcome is unknown
+    double await(CompletableFuture<Double> result) {
+        try {
+            try {
+                return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (withdraw(result)) {
+                    throw new ServiceOverloadedException(NOT_APPLIED);
+                }
+                if (!result.isDone()) {
+                    throw new TransferPendingException("Transfer is still being committed, check the balance before retrying");
+                }
+                return result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private static boolean withdraw(CompletableFuture<Double> result) {
+        if (!(result instanceof Transfer.Outcome outcome)) {
+            return false;
+        }
+        Transfer transfer = outcome.transfer();
+        if (transfer.partition == null || !transfer.partition.queue.remove(transfer)) {
+            return false;
+        }
+        result.completeExceptionally(new ServiceOverloadedException(NOT_APPLIED));
+        return true;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        closed = true;
+        for (Partition partition : partitions) {
+            partition.interrupt();
+        }
+        for (Partition partition : partitions) {
+            partition.join(timeoutMillis);
+            partition.failQueued();
+        }
+    }
+
+    private void commit(List<Transfer> batch, Map<Long, Position> positions) {
+        Map<Long, List<Transfer>> byAccount = new LinkedHashMap<>();
+        for (Transfer transfer : batch) {
+            byAccount.computeIfAbsent(transfer.accountId, id -> new ArrayList<>()).add(transfer);
+        }
+        Map<Long, Position> committed;
+        try {
+            committed = tx.execute(status -> {
+                Map<Long, Position> after = new LinkedHashMap<>();
+                Map<Long, List<LedgerEntry>> appended = new LinkedHashMap<>();
+                Instant now = Instant.now();
+                byAccount.forEach((id, transfers) -> {
+                    Position known = positions.get(id);
+                    Optional<Position> current = known != null
+                            ? Optional.of(ledger.catchUp(id, known))
+                            : ledger.position(id);
+                    current.ifPresent(position -> {
+                        List<LedgerEntry> entries = new ArrayList<>(transfers.size());
+                        for (Transfer transfer : transfers) {
+                            entries.add(LedgerService.debit(id, transfer.amount, now));
+                        }
+                        appended.put(id, entries);
+                        after.put(id, position);
+                    });
+                });
+                ledger.append(appended.values().stream().flatMap(List::stream).toList());
+                // Ids are assigned on append, so the new positions can only be computed afterwards
+                appended.forEach((id, entries) -> {
+                    double balance = after.get(id).balance();
+                    for (LedgerEntry entry : entries) {
+                        balance += entry.getAmount();
+                    }
+                    after.put(id, new Position(balance, entries.get(entries.size() - 1).getId()));
+                });
+                return after;
+            });
+        } catch (Throwable e) {
+            // Errors included: the partition must outlive a bad batch, or its queue would never be served
+            log.warn("Transfer batch of {} failed", batch.size(), e);
+            batch.forEach(transfer -> transfer.result.completeExceptionally(e));
+            return;
+        }
+        // Applied from here on: audited first, so nothing that follows can lose the record
+        for (Transfer transfer : batch) {
+            if (committed.containsKey(transfer.accountId)) {
+                audit.transfer(transfer.actor, transfer.accountId, transfer.amount);
+            }
+        }
+        try {
+            positions.putAll(committed);
+            committed.forEach((id, position) -> cache.committed(id, position.balance()));
+            byAccount.forEach((id, transfers) -> complete(transfers,
+                    Optional.ofNullable(committed.get(id)).map(Position::balance)));
+        } catch (Throwable e) {
+            // Not a failure of the transfers, which are applied: callers left waiting time out as pending.
+            // The remembered positions may be half updated, so they are read again from the ledger.
+            log.warn("Transfer batch of {} committed, then failed", batch.size(), e);
+            positions.clear();
+        }
+    }
+
+    // Replays the group in arrival order so each caller sees the balance right after its own debit
+    private static void complete(List<Transfer> transfers, Optional<Double> balanceAfter) {
+        if (balanceAfter.isEmpty()) {
+            NotFoundException notFound = new NotFoundException("Account not found");
+            transfers.forEach(transfer -> transfer.result.completeExceptionally(notFound));
+            return;
+        }
+        double running = balanceAfter.get();
+        for (Transfer transfer : transfers) {
+            running += transfer.amount;
+        }
+        for (Transfer transfer : transfers) {
+            running -= transfer.amount;
+            transfer.result.complete(running);
+        }
+    }
+
+    private static final class Transfer {
+        final Long accountId;
+        final double amount;
+        final String actor;
+        final Outcome result = new Outcome();
+        // Set before the transfer is queued; null for transfers failed before queueing
+        Partition partition;
+
+        Transfer(Long accountId, double amount, String actor) {
+            this.accountId = accountId;
+            this.amount = amount;
+            this.actor = actor;
+        }
+
+        // Leads back from the future handed to the caller to the queued transfer
+        final class Outcome extends CompletableFuture<Double> {
+            Transfer transfer() {
+                return Transfer.this;
+            }
+        }
+    }
+
+    private final class Partition extends Thread {
+        final int shard;
+        final BlockingQueue<Transfer> queue = new LinkedBlockingQueue<>();
+        // Confined to this thread; least recently used accounts fall out and are re-read on demand
+        final Map<Long, Position> positions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Position> eldest) {
+                return size() > positionsPerPartition;
+            }
+        };
+
+        Partition(int index, int shard) {
+            super("transfer-partition-" + index);
+            this.shard = shard;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            AccountShards.bind(shard);
+            List<Transfer> batch = new ArrayList<>(maxBatch);
+            while (!isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                commit(batch, positions);
+                batch.clear();
+            }
+        }
+
+        void failQueued() {
+            IllegalStateException stopped = new IllegalStateException("Transfer engine is shutting down");
+            for (Transfer transfer; (transfer = queue.poll()) != null; ) {
+                transfer.result.completeExceptionally(stopped);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package edu.nu.owaspapivulnlab.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Writes every user as one JSON array straight from a database cursor. Each row is detached as
+// soon as it is written, so neither the persistence context nor the response grows with the table.
+@Service
+public class UserExportService {
+
+    private final AppUserRepository users;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+    private final ObjectMapper mapper;
+    private final int flushEvery;
+
+    public UserExportService(AppUserRepository users, EntityManager entityManager, ObjectMapper mapper,
+                             @Value("${app.users.export.flush-every:1000}") int flushEvery) {
+        this.users = users;
+        this.entityManager = entityManager;
+        this.mapper = mapper;
+        // Flushing is done in batches below rather than after every row
+        this.writer = mapper.writerFor(AppUser.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.flushEvery = flushEvery;
+    }
+
+    @Transactional(readOnly = true)
+    public long writeAll(OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<AppUser> rows = users.streamAllOrderById();
+             JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            for (Iterator<AppUser> it = rows.iterator(); it.hasNext(); ) {
+                AppUser user = it.next();
+                writer.writeValue(json, user);
+                entityManager.detach(user);
+                if (++written % flushEvery == 0) {
+                    json.flush();
+                }
+            }
+            json.writeEndArray();
+        }
+        return written;
+    }
+}
@@ -0,0 +1,265 @@
+package edu.nu.owaspapivulnlab.service;
+
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Case-insensitive substring search over username and email. Each field is broken into trigrams
+// with a sorted id posting list per trigram; a query intersects the postings of its own trigrams,
+// so its cost follows the size of the rarest trigram rather than the number of users. Candidates
+// are then verified against the stored text, so results match the old LIKE '%q%' semantics.
+@Service
+public class UserSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int CONTAINS = 1;
+
+    private final AppUserRepository users;
+    private final int loadBatch;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, String[]> fields = new HashMap<>();
+    private volatile boolean ready;
+
+    public UserSearchIndex(AppUserRepository users,
+                           @Value("${app.search.load-batch:10000}") int loadBatch) {
+        this.users = users;
+        this.loadBatch = loadBatch;
+    }
+
+    // Runs after the seeders, so the index starts out with every user that exists at boot
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        int loaded = 0;
+        List<AppUserRepository.SearchFields> page;
+        do {
+            page = users.findSearchFieldsAfter(afterId, Limit.of(loadBatch));
+            for (AppUserRepository.SearchFields row : page) {
+                add(row.getId(), row.getUsername(), row.getEmail());
+                afterId = row.getId();
+            }
+            loaded += page.size();
+        } while (page.size() == loadBatch);
+        ready = true;
+        log.info("User search index loaded {} users in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(AppUser user) {
+        add(user.getId(), user.getUsername(), user.getEmail());
+    }
+
+    public void add(Long id, String username, String email) {
+        String[] text = {normalize(username), normalize(email)};
+        lock.writeLock().lock();
+        try {
+            String[] previous = fields.put(id, text);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            for (long trigram : trigrams(text)) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            String[] previous = fields.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return fields.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids ranked exact match first, then prefix, then substring; ties by id
+    public List<Long> search(String query, int page, int size) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return List.of();
+        }
+        // Callers bound the window by size(); the queue grows with the hits, not with the window
+        int window = Math.multiplyExact(page + 1, size);
+        PriorityQueue<long[]> top = new PriorityQueue<>(WORST_FIRST);
+        lock.readLock().lock();
+        try {
+            if (q.length() < 3) {
+                // Too short for trigrams: scan the in-memory text instead of the table
+                for (Map.Entry<Long, String[]> e : fields.entrySet()) {
+                    offer(top, window, e.getKey(), score(e.getValue(), q));
+                }
+            } else {
+                for (long id : candidates(q)) {
+                    offer(top, window, id, score(fields.get(id), q));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long[][] ranked = top.toArray(new long[0][]);
+        Arrays.sort(ranked, WORST_FIRST.reversed());
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = page * size; i < ranked.length; i++) {
+            ids.add(ranked[i][0]);
+        }
+        return ids;
+    }
+
+    // Orders {id, score} pairs so the head of the queue is the weakest hit kept so far
+    private static final Comparator<long[]> WORST_FIRST =
+            Comparator.<long[]>comparingLong(hit -> hit[1]).thenComparingLong(hit -> -hit[0]);
+
+    private static void offer(PriorityQueue<long[]> top, int window, long id, int score) {
+        if (score == 0) {
+            return;
+        }
+        top.offer(new long[]{id, score});
+        if (top.size() > window) {
+            top.poll();
+        }
+    }
+
+    private long[] candidates(String q) {
+        List<Postings> lists = new ArrayList<>();
+        for (long trigram : trigrams(new String[]{q})) {
+            Postings list = postings.get(trigram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int n = result.length;
+        for (int l = 1; l < lists.size() && n > 0; l++) {
+            Postings other = lists.get(l);
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (Arrays.binarySearch(other.ids, 0, other.size, result[i]) >= 0) {
+                    result[kept++] = result[i];
+                }
+            }
+            n = kept;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int score(String[] text, String q) {
+        if (text == null) {
+            return 0;
+        }
+        int best = 0;
+        for (String field : text) {
+            if (field.equals(q)) {
+                return EXACT;
+            }
+            if (field.startsWith(q)) {
+                best = Math.max(best, PREFIX);
+            } else if (best == 0 && field.contains(q)) {
+                best = CONTAINS;
+            }
+        }
+        return best;
+    }
+
+    private void unindex(Long id, String[] text) {
+        for (long trigram : trigrams(text)) {
+            Postings list = postings.get(trigram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    private static Set<Long> trigrams(String[] text) {
+        Set<Long> result = new HashSet<>();
+        for (String field : text) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                result.add(((long) field.charAt(i) << 32) | ((long) field.charAt(i + 1) << 16) | field.charAt(i + 2));
+            }
+        }
+        return result;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    // Sorted, duplicate-free ids; ids mostly arrive in increasing order, which makes add an append
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) {
+                    return;
+                }
+                insertAt(-at - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        boolean remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        private void insertAt(int at, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+    }
+}
@@ -3,51 +3,87 @@ package edu.nu.owaspapivulnlab.web;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import edu.nu.owaspapivulnlab.model.Account;
-import edu.nu.owaspapivulnlab.model.AppUser;
-import edu.nu.owaspapivulnlab.repo.AccountRepository;
-import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.dto.BatchResult;
+import edu.nu.owaspapivulnlab.exception.NotFoundException;
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.BatchService;
+import edu.nu.owaspapivulnlab.service.PrincipalResolver;
+import edu.nu.owaspapivulnlab.service.TransferEngine;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/accounts")
 public class AccountController {
 
-    private final AccountRepository accounts;
-    private final AppUserRepository users;
+    private final PrincipalResolver principals;
+    private final TransferEngine transfers;
+    private final AccountCache cache;
+    private final BatchService batches;
 
-    public AccountController(AccountRepository accounts, AppUserRepository users) {
-        this.accounts = accounts;
-        this.users = users;
+    public AccountController(PrincipalResolver principals, TransferEngine transfers, AccountCache cache,
+                             BatchService batches) {
+        this.principals = principals;
+        this.transfers = transfers;
+        this.cache = cache;
+        this.batches = batches;
     }
 
     // VULNERABILITY(API1: BOLA) - no check whether account belongs to caller
     @GetMapping("/{id}/balance")
     public Double balance(@PathVariable Long id) {
-        Account a = accounts.findById(id).orElseThrow(() -> new RuntimeException("Account not found"));
-        return a.getBalance();
+        return cache.balance(id).orElseThrow(() -> new NotFoundException("Account not found"));
     }
 
-    // VULNERABILITY(API4: Unrestricted Resource Consumption) - no rate limiting on transfer
+    // VULNERABILITY(API4: Unrestricted Resource Consumption) - amount is neither validated nor bounded
     // VULNERABILITY(API5/1): no authorization check on owner
     @PostMapping("/{id}/transfer")
-    public ResponseEntity<?> transfer(@PathVariable Long id, @RequestParam Double amount) {
-        Account a = accounts.findById(id).orElseThrow(() -> new RuntimeException("Account not found"));
-        a.setBalance(a.getBalance() - amount);
-        accounts.save(a);
+    public ResponseEntity<?> transfer(@PathVariable Long id, @RequestParam Double amount, Authentication auth) {
+        double remaining = transfers.transfer(id, amount, auth != null ? auth.getName() : "anonymous");
         Map<String, Object> response = new HashMap<>();
         response.put("status", "ok");
-        response.put("remaining", a.getBalance());
+        response.put("remaining", remaining);
         return ResponseEntity.ok(response);
     }
 
+    // Bulk transfer: [{"accountId": 1, "amount": 10.0}, ...]; items are queued as they are read so
+    // the transfer engine can group-commit them, and each gets its own result
+    @PostMapping("/transfers/batch")
+    public BatchResult transferBatch(InputStream body, Authentication auth) throws IOException {
+        return batches.transfer(body, auth != null ? auth.getName() : "anonymous");
+    }
+
     // Safe-ish helper to view my accounts (still leaks more than needed)
+    // Conditional GET: the ETag is computed from the cached accounts and balances, so an unchanged
+    // list is answered with 304 before anything is serialized. The owner id comes from the principal, so
+    // with warm caches the request runs no query at all.
     @GetMapping("/mine")
-    public Object mine(Authentication auth) {
-        AppUser me = users.findByUsername(auth != null ? auth.getName() : "anonymous").orElse(null);
-        return me == null ? Collections.emptyList() : accounts.findByOwnerUserId(me.getId());
+    public Object mine(Authentication auth, WebRequest request) {
+        Long me = principals.userId(auth).orElse(null);
+        if (me == null) {
+            return Collections.emptyList();
+        }
+        List<Account> mine = withCurrentBalances(cache.ownedBy(me));
+        return request.checkNotModified(ETags.accounts(mine)) ? null : mine;
+    }
+
+    // Fresh copies: cached owner lists carry only the opening balance
+    private List<Account> withCurrentBalances(List<Account> owned) {
+        return owned.stream()
+                .map(a -> Account.builder()
+                        .id(a.getId())
+                        .ownerUserId(a.getOwnerUserId())
+                        .iban(a.getIban())
+                        .balance(cache.balance(a.getId()).orElse(a.getBalance()))
+                        .version(a.getVersion())
+                        .build())
+                .toList();
     }
 }
@@ -1,18 +1,62 @@
 package edu.nu.owaspapivulnlab.web;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import edu.nu.owaspapivulnlab.config.RateLimiter;
+import edu.nu.owaspapivulnlab.dto.AuditEvent;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.LedgerEntryRepository;
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.AuditLog;
+import edu.nu.owaspapivulnlab.service.JwtService;
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
 
+    private final JwtService jwt;
+    private final RateLimiter rateLimiter;
+    private final AccountCache accountCache;
+    private final PasswordHashingService passwords;
+    private final MetricsRegistry metrics;
+    private final Statistics hibernate;
+    private final AuditLog audit;
+    private final AccountShards shards;
+    private final AccountRepository accounts;
+    private final LedgerEntryRepository ledger;
+
+    public AdminController(JwtService jwt, RateLimiter rateLimiter, AccountCache accountCache,
+                           PasswordHashingService passwords, MetricsRegistry metrics, Statistics hibernate,
+                           AuditLog audit, AccountShards shards, AccountRepository accounts,
+                           LedgerEntryRepository ledger) {
+        this.jwt = jwt;
+        this.rateLimiter = rateLimiter;
+        this.accountCache = accountCache;
+        this.passwords = passwords;
+        this.metrics = metrics;
+        this.hibernate = hibernate;
+        this.audit = audit;
+        this.shards = shards;
+        this.accounts = accounts;
+        this.ledger = ledger;
+    }
+
     // VULNERABILITY(API7: Security Misconfiguration) - may be exposed via incorrect matcher order
     @GetMapping("/metrics")
     public Map<String, Object> metrics() {
@@ -21,6 +65,100 @@ public class AdminController {
         metricsMap.put("uptimeMs", rt.getUptime());
         metricsMap.put("javaVersion", System.getProperty("java.version"));
         metricsMap.put("threads", ManagementFactory.getThreadMXBean().getThreadCount());
+        CacheStats jwtCache = jwt.cacheStats();
+        metricsMap.put("jwtCacheHits", jwtCache.hitCount());
+        metricsMap.put("jwtCacheMisses", jwtCache.missCount());
+        metricsMap.put("jwtCacheSize", jwt.cacheSize());
+        metricsMap.put("rateLimitBuckets", rateLimiter.storeSize());
+        metricsMap.put("rateLimitEvictions", rateLimiter.evictions());
+        metricsMap.put("rateLimitRejections", rateLimiter.rejections());
+        metricsMap.put("accountCacheEnabled", accountCache.isEnabled());
+        CacheStats balances = accountCache.balanceStats();
+        metricsMap.put("balanceCacheHitRatio", balances.hitRate());
+        metricsMap.put("balanceCacheEvictions", balances.evictionCount());
+        CacheStats owners = accountCache.ownerStats();
+        metricsMap.put("ownerCacheHitRatio", owners.hitRate());
+        metricsMap.put("ownerCacheEvictions", owners.evictionCount());
+        metricsMap.put("passwordHashCost", passwords.cost());
+        metricsMap.put("passwordHashQueueDepth", passwords.queueDepth());
+        metricsMap.put("passwordHashActive", passwords.activeHashes());
+        LatencyHistogram.Snapshot hashing = passwords.latency().snapshot();
+        metricsMap.put("passwordHashCount", hashing.count());
+        metricsMap.put("passwordHashMeanMs", hashing.meanNanos() / 1e6);
+        metricsMap.put("passwordHashP99Ms", hashing.valueAt(0.99) / 1e6);
+        metricsMap.put("passwordHashRejections", passwords.rejections());
+        metricsMap.put("passwordRehashes", passwords.rehashes());
         return metricsMap;
     }
+
+    // VULNERABILITY(API7) - leaks query text, and with it the schema, to anyone who can reach /api/admin
+    @GetMapping("/metrics/hibernate")
+    public Map<String, Object> hibernate() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("statementsPrepared", hibernate.getPrepareStatementCount());
+        stats.put("queryExecutions", hibernate.getQueryExecutionCount());
+        stats.put("queryExecutionMaxMs", hibernate.getQueryExecutionMaxTime());
+        stats.put("slowestQuery", hibernate.getQueryExecutionMaxTimeQueryString());
+        stats.put("slowQueries", hibernate.getSlowQueries());
+        stats.put("entityLoads", hibernate.getEntityLoadCount());
+        stats.put("entityInserts", hibernate.getEntityInsertCount());
+        stats.put("entityUpdates", hibernate.getEntityUpdateCount());
+        stats.put("transactions", hibernate.getTransactionCount());
+        stats.put("secondLevelCacheHits", hibernate.getSecondLevelCacheHitCount());
+        stats.put("secondLevelCacheMisses", hibernate.getSecondLevelCacheMissCount());
+        stats.put("secondLevelCachePuts", hibernate.getSecondLevelCachePutCount());
+        Map<String, Object> queries = new HashMap<>();
+        for (String query : hibernate.getQueries()) {
+            QueryStatistics q = hibernate.getQueryStatistics(query);
+            queries.put(query, Map.of("executions", q.getExecutionCount(),
+                    "avgMs", q.getExecutionAvgTime(), "maxMs", q.getExecutionMaxTime(), "rows", q.getExecutionRowCount()));
+        }
+        stats.put("queries", queries);
+        return stats;
+    }
+
+    // Same exposure as /metrics, in the Prometheus text format
+    @GetMapping(value = "/metrics/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String prometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        metrics.writePrometheus(out);
+        return out.toString();
+    }
+
+    // VULNERABILITY(API5) - the audit trail, actor names included, is readable by anyone who reaches /api/admin
+    @GetMapping("/audit")
+    public List<AuditEvent> audit(@RequestParam(defaultValue = "1") long from,
+                                  @RequestParam(defaultValue = "100") int limit) {
+        return audit.read(from, Math.min(limit, 1000));
+    }
+
+    // VULNERABILITY(API4) - unauthenticated, unthrottled scan of every shard's account and ledger tables.
+    // Queried on all shards at once; transfers only move money, so the totals' balance stays constant.
+    @GetMapping("/shards")
+    public Map<String, Object> shards() {
+        List<Map<String, Object>> perShard = shards.fanOut(shard -> {
+            AccountRepository.Totals totals = accounts.findTotals();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("shard", shard);
+            stats.put("accounts", totals.getAccounts());
+            stats.put("openingBalances", totals.getOpeningBalances());
+            stats.put("ledgerEntries", ledger.count());
+            stats.put("ledgerSum", ledger.sumAll());
+            return stats;
+        });
+        long accountCount = 0;
+        long entryCount = 0;
+        double balance = 0;
+        for (Map<String, Object> stats : perShard) {
+            accountCount += (Long) stats.get("accounts");
+            entryCount += (Long) stats.get("ledgerEntries");
+            balance += (Double) stats.get("openingBalances") + (Double) stats.get("ledgerSum");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("shards", perShard);
+        result.put("accounts", accountCount);
+        result.put("ledgerEntries", entryCount);
+        result.put("balance", balance);
+        return result;
+    }
 }
@@ -1,11 +1,16 @@
 package edu.nu.owaspapivulnlab.web;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import edu.nu.owaspapivulnlab.model.AppUser;
 import edu.nu.owaspapivulnlab.repo.AppUserRepository;
 import edu.nu.owaspapivulnlab.service.JwtService;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import edu.nu.owaspapivulnlab.service.TokenRevocationService;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -15,10 +20,15 @@ import java.util.Map;
 public class AuthController {
     private final AppUserRepository users;
     private final JwtService jwt;
+    private final PasswordHashingService passwords;
+    private final TokenRevocationService revocations;
 
-    public AuthController(AppUserRepository users, JwtService jwt) {
+    public AuthController(AppUserRepository users, JwtService jwt, PasswordHashingService passwords,
+                          TokenRevocationService revocations) {
         this.users = users;
         this.jwt = jwt;
+        this.passwords = passwords;
+        this.revocations = revocations;
     }
 
     public static class LoginReq {
@@ -56,12 +66,22 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginReq req) {
-        // VULNERABILITY(API2: Broken Authentication): plaintext password check, no lockout/rate limit/MFA
+        // VULNERABILITY(API2: Broken Authentication): no lockout/MFA; unknown usernames skip hashing, so timing reveals them
         AppUser user = users.findByUsername(req.username()).orElse(null);
-        if (user != null && user.getPassword().equals(req.password())) {
+        PasswordHashingService.Verification check = user == null
+                ? new PasswordHashingService.Verification(false, null)
+                : passwords.verify(req.password(), user.getPassword());
+        if (check.matched()) {
+            if (check.upgradedHash() != null) {
+                // Legacy plaintext or an older cost: store the current hash now that we know the password
+                user.setPassword(check.upgradedHash());
+                users.save(user);
+            }
             Map<String, Object> claims = new HashMap<>();
             claims.put("role", user.getRole());
             claims.put("isAdmin", user.isAdmin()); // VULN: trusts client-side role later
+            // Lets requests find the caller's rows without looking the username up
+            claims.put("uid", user.getId());
             String token = jwt.issue(user.getUsername(), claims);
             return ResponseEntity.ok(new TokenRes(token));
         }
@@ -69,4 +89,33 @@ public class AuthController {
         error.put("error", "invalid credentials");
         return ResponseEntity.status(401).body(error);
     }
+
+    // Revokes the bearer token the request was made with
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String header) {
+        return revoke(header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null);
+    }
+
+    // Revokes any token presented in full, e.g. one reported stolen: holding it is proof enough
+    @PostMapping("/revoke")
+    public ResponseEntity<?> revoke(@RequestBody TokenRes body) {
+        return revoke(body.getToken());
+    }
+
+    private ResponseEntity<?> revoke(String token) {
+        Map<String, String> response = new HashMap<>();
+        Claims claims;
+        try {
+            claims = token == null ? null : jwt.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            claims = null;
+        }
+        if (claims == null || claims.getId() == null || revocations.isRevoked(claims.getId())) {
+            response.put("error", "token is invalid, expired or already revoked");
+            return ResponseEntity.status(401).body(response);
+        }
+        revocations.revoke(claims.getId(), claims.getExpiration().toInstant());
+        response.put("status", "revoked");
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,34 @@
+package edu.nu.owaspapivulnlab.web;
+
+import edu.nu.owaspapivulnlab.model.Account;
+
+import java.util.List;
+
+// Strong validators for the polled read endpoints: each changes whenever the body would, and is
+// computed from data the handler has before it serializes anything
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String user(Long id, Long version) {
+        return "\"u" + id + "v" + version + '"';
+    }
+
+    // Account rows carry a version, but transfers only append ledger entries, so the current balance
+    // is part of the tag too: a 64-bit mix of every field that is rendered
+    static String accounts(List<Account> accounts) {
+        long h = accounts.size();
+        for (Account a : accounts) {
+            h = mix(h, a.getId());
+            h = mix(h, a.getVersion() == null ? 0 : a.getVersion());
+            h = mix(h, a.getBalance() == null ? 0 : Double.doubleToLongBits(a.getBalance()));
+        }
+        return "\"a" + Long.toHexString(h) + '"';
+    }
+
+    private static long mix(long h, long value) {
+        h = (h ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -1,20 +1,62 @@
 package edu.nu.owaspapivulnlab.web;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.exception.CustomException;
+import edu.nu.owaspapivulnlab.exception.InvalidRequestException;
+import edu.nu.owaspapivulnlab.exception.ServiceOverloadedException;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 // VULNERABILITY(API7): overly verbose error responses
 @ControllerAdvice
 public class GlobalErrorHandler {
 
+    // Distinct (status, message) pairs kept as ready responses; CustomException messages are constant,
+    // so this only fills up if a caller puts ids or input into them, and then new ones are built each time
+    private static final int MAX_PREBUILT = 256;
+
+    private final MetricsRegistry metrics;
+    private final ObjectMapper mapper;
+    private final ConcurrentMap<Class<?>, LongAdder> errors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ResponseEntity<byte[]>> prebuilt = new ConcurrentHashMap<>();
+
+    public GlobalErrorHandler(MetricsRegistry metrics, ObjectMapper mapper) {
+        this.metrics = metrics;
+        this.mapper = mapper;
+    }
+
+    // Not-found, forbidden and conflict: the status comes from the type and the JSON body is serialized
+    // once per message, then shared (the bytes are never modified after they are built)
+    @ExceptionHandler(CustomException.class)
+    public ResponseEntity<byte[]> expected(CustomException e) {
+        count(e);
+        String key = e.getStatus().value() + e.getMessage();
+        ResponseEntity<byte[]> response = prebuilt.get(key);
+        if (response == null) {
+            response = build(e);
+            if (prebuilt.size() < MAX_PREBUILT) {
+                prebuilt.putIfAbsent(key, response);
+            }
+        }
+        return response;
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> all(Exception e) {
+        count(e);
         Map<String, String> errorMap = new HashMap<>();
         errorMap.put("error", e.getClass().getName());
         errorMap.put("message", e.getMessage());
@@ -24,8 +66,42 @@ public class GlobalErrorHandler {
 
     @ExceptionHandler(DataAccessException.class)
     public ResponseEntity<?> db(DataAccessException e) {
+        count(e);
         Map<String, String> errorMap = new HashMap<>();
         errorMap.put("dbError", e.getMessage());
         return ResponseEntity.status(500).body(errorMap);
     }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<?> overloaded(ServiceOverloadedException e) {
+        count(e);
+        Map<String, String> errorMap = new HashMap<>();
+        errorMap.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorMap);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<?> invalid(InvalidRequestException e) {
+        count(e);
+        Map<String, String> errorMap = new HashMap<>();
+        errorMap.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(errorMap);
+    }
+
+    private ResponseEntity<byte[]> build(CustomException e) {
+        try {
+            return ResponseEntity.status(e.getStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.writeValueAsBytes(Map.of("error", e.getMessage())));
+        } catch (JsonProcessingException impossible) {
+            throw new IllegalStateException(impossible);
+        }
+    }
+
+    private void count(Exception e) {
+        errors.computeIfAbsent(e.getClass(), type -> metrics.counter("api_errors_total",
+                "Exceptions handled by GlobalErrorHandler", "exception", type.getSimpleName())).increment();
+    }
 }
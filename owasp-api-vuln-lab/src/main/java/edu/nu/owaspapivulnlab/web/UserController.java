@@ -1,74 +1,155 @@
 package edu.nu.owaspapivulnlab.web;
 import org.springframework.security.core.Authentication;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.access.AccessDeniedException;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import edu.nu.owaspapivulnlab.model.AppUser;
 import edu.nu.owaspapivulnlab.repo.AppUserRepository;
-
+import edu.nu.owaspapivulnlab.dto.AppUserDTO;
+import edu.nu.owaspapivulnlab.dto.BatchResult;
+import edu.nu.owaspapivulnlab.exception.ConflictException;
+import edu.nu.owaspapivulnlab.exception.ForbiddenException;
+import edu.nu.owaspapivulnlab.exception.NotFoundException;
+import edu.nu.owaspapivulnlab.service.AuditLog;
+import edu.nu.owaspapivulnlab.service.BatchService;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import edu.nu.owaspapivulnlab.service.PrincipalResolver;
+import edu.nu.owaspapivulnlab.service.UserExportService;
+import edu.nu.owaspapivulnlab.service.UserSearchIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
     private final AppUserRepository users;
-    @Autowired
-    private AppUserRepository userRepository;
-
-    public UserController(AppUserRepository users) {
+    private final UserSearchIndex searchIndex;
+    private final UserExportService exporter;
+    private final PasswordHashingService passwords;
+    private final BatchService batches;
+    private final AuditLog audit;
+    private final PrincipalResolver principals;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public UserController(AppUserRepository users, UserSearchIndex searchIndex, UserExportService exporter,
+                          PasswordHashingService passwords, BatchService batches, AuditLog audit,
+                          PrincipalResolver principals,
+                          @Value("${app.users.page-size:100}") int defaultPageSize,
+                          @Value("${app.users.max-page-size:1000}") int maxPageSize) {
         this.users = users;
+        this.searchIndex = searchIndex;
+        this.exporter = exporter;
+        this.passwords = passwords;
+        this.batches = batches;
+        this.audit = audit;
+        this.principals = principals;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     // VULNERABILITY(API1: BOLA/IDOR) - no ownership check, any authenticated OR anonymous GET (due to SecurityConfig) can fetch any user
 @GetMapping("/{id}")
-public AppUser get(@PathVariable Long id) {
+public AppUserDTO get(@PathVariable Long id, WebRequest request) {
     // Get currently authenticated user
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-    String currentUsername = auth.getName();
-
-    AppUser currentUser = userRepository.findByEmail(currentUsername)
-            .orElseThrow(() -> new RuntimeException("User not found"));
 
     // Ownership validation: users can only access their own info
-    if (!currentUser.getId().equals(id)) {
-        throw new AccessDeniedException("You are not authorized to access this resource.");
-    }
-
-    return users.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
+    return own(auth, id, request);
 }
 
 
     // VULNERABILITY(API6: Mass Assignment) - binds role/isAdmin from client
     @PostMapping
     public AppUser create(@Valid @RequestBody AppUser body) {
-	BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-    body.setPassword(encoder.encode(body.getPassword()));       
-    return users.save(body);
+    body.setPassword(passwords.hash(body.getPassword()));
+    // A client-supplied id saves over that user, possibly under a new name; the only way to rename one,
+    // since batch creation drops ids
+    Long overwritten = body.getId();
+    AppUser saved;
+    try {
+        saved = users.save(body);
+    } catch (DataIntegrityViolationException e) {
+        throw new ConflictException("Username or email already exists");
+    }
+    searchIndex.add(saved);
+    if (overwritten != null) {
+        principals.userChanged(overwritten);
+    }
+    return saved;
+    }
+
+    // Bulk create: a JSON array of users, read and inserted incrementally; one result per element
+    @PostMapping("/batch")
+    public BatchResult createBatch(InputStream body) throws IOException {
+        return batches.createUsers(body);
     }
 
     // VULNERABILITY(API9: Improper Inventory + API8 Injection style): naive 'search' that can be abused for enumeration
     @GetMapping("/search")
-    public List<AppUser> search(@RequestParam String q) {
-        return users.search(q);
+    public List<AppUserDTO> search(@RequestParam String q,
+                                @RequestParam(defaultValue = "0") int page,
+                                @RequestParam(defaultValue = "20") int size) {
+        int pageSize = Math.max(1, Math.min(size, 100));
+        if (!searchIndex.isReady()) {
+            // Index still loading at startup: fall back to the table scan, paged the same way
+            return users.search(q).stream().skip((long) Math.max(page, 0) * pageSize).limit(pageSize).toList();
+        }
+        int pageIndex = Math.max(page, 0);
+        // A page starting past the last indexed user is empty, which also keeps the ranking window
+        // (page + 1) * size within one page of the index size
+        if ((long) pageIndex * pageSize >= searchIndex.size()) {
+            return List.of();
+        }
+        List<Long> ids = searchIndex.search(q, pageIndex, pageSize);
+        // One batched load for just this page, returned in rank order; ids deleted meanwhile drop out
+        Map<Long, AppUserDTO> byId = new HashMap<>();
+        users.findViewsByIdIn(ids).forEach(u -> byId.put(u.id(), u));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
-    // VULNERABILITY(API3: Excessive Data Exposure) - returns all users including sensitive fields
+    // VULNERABILITY(API3: Excessive Data Exposure) - every user's email, role and admin flag, to anyone
+    // Keyset pages by id; X-Next-After-Id carries the cursor for the next page while one may exist
     @GetMapping
-    public List<AppUser> list() {
-        return users.findAll();
+    public ResponseEntity<List<AppUserDTO>> list(@RequestParam(defaultValue = "0") long afterId,
+                                              @RequestParam(required = false) Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        List<AppUserDTO> page = users.findViewsAfter(afterId, Limit.of(pageSize));
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            ok.header("X-Next-After-Id", String.valueOf(page.get(page.size() - 1).id()));
+        }
+        return ok.body(page);
+    }
+
+    // VULNERABILITY(API3: Excessive Data Exposure) - whole table in one response, written as it is read
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = out -> exporter.writeAll(out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     // VULNERABILITY(API5: Broken Function Level Authorization) - allows regular users to delete anyone
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable Long id) {
+    public ResponseEntity<?> delete(@PathVariable Long id, Authentication auth) {
         users.deleteById(id);
+        searchIndex.remove(id);
+        principals.userDeleted(id);
+        audit.userDeleted(auth != null ? auth.getName() : "anonymous", id);
         Map<String, String> response = new HashMap<>();
         response.put("status", "deleted");
         return ResponseEntity.ok(response);
@@ -78,11 +159,37 @@ public AppUser get(@PathVariable Long id) {
 // Ownership Enforcement Added
 // Ensures users can only access their own data
 @GetMapping("/me")
-public ResponseEntity<AppUser> getMyInfo(Authentication auth) {
-    AppUser currentUser = userRepository.findByEmail(auth.getName()).orElseThrow();
-    return ResponseEntity.ok(currentUser);
+public AppUserDTO getMyInfo(Authentication auth, WebRequest request) {
+    return own(auth, null, request);
 }
 
+    // The caller's own row (checked against id when one is given), as a conditional GET. The caller's id
+    // comes from the principal without a query. With If-None-Match, a version-only lookup decides between
+    // 304 and loading the row; the ETag is taken from the version read first, so it is never newer than
+    // the body it goes out with.
+    private AppUserDTO own(Authentication auth, Long id, WebRequest request) {
+        Long me = principals.userId(auth).orElseThrow(() -> new NotFoundException("User not found"));
+        checkOwner(me, id);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            AppUserRepository.VersionStamp stamp = users.findVersionById(me)
+                    .orElseThrow(() -> new NotFoundException("User not found"));
+            if (request.checkNotModified(ETags.user(stamp.getId(), stamp.getVersion()))) {
+                return null;
+            }
+            return users.findViewById(me).orElseThrow(() -> new NotFoundException("User not found"));
+        }
+        AppUserDTO currentUser = users.findViewById(me)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+        request.checkNotModified(ETags.user(currentUser.id(), currentUser.version()));
+        return currentUser;
+    }
+
+    private static void checkOwner(Long currentUserId, Long id) {
+        if (id != null && !currentUserId.equals(id)) {
+            throw new ForbiddenException("You are not authorized to access this resource.");
+        }
+    }
+
 
 // DTO for incoming user registration (excludes sensitive fields)
 class AppUserRequestDTO {
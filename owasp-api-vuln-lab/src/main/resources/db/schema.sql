@@ -0,0 +1,60 @@
+-- Schema for the entities, used where Hibernate only validates (spring.jpa.hibernate.ddl-auto=validate),
+-- e.g. the faststart and durable profiles. Keep in step with the @Entity classes: validation fails at startup otherwise.
+create sequence if not exists account_seq start with 1 increment by 50;
+create sequence if not exists app_user_seq start with 1 increment by 50;
+create sequence if not exists balance_snapshot_seq start with 1 increment by 50;
+create sequence if not exists ledger_entry_seq start with 1 increment by 50;
+
+create table if not exists account (
+    balance float(53),
+    id bigint not null,
+    owner_user_id bigint,
+    iban varchar(255),
+    version bigint default 0 not null,
+    primary key (id)
+);
+
+create table if not exists app_user (
+    is_admin boolean not null,
+    id bigint not null,
+    email varchar(255),
+    password varchar(255) not null,
+    role varchar(255),
+    username varchar(255) not null,
+    version bigint default 0 not null,
+    primary key (id),
+    constraint uk_app_user_username unique (username),
+    constraint uk_app_user_email unique (email)
+);
+
+create table if not exists revoked_token (
+    expires_at timestamp(6) with time zone,
+    jti varchar(255) not null,
+    primary key (jti)
+);
+
+create table if not exists balance_snapshot (
+    balance float(53),
+    account_id bigint,
+    id bigint not null,
+    last_entry_id bigint,
+    taken_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+create table if not exists ledger_entry (
+    amount float(53),
+    account_id bigint,
+    created_at timestamp(6) with time zone,
+    id bigint not null,
+    primary key (id)
+);
+
+-- Files created before the entities were versioned
+alter table account add column if not exists version bigint default 0 not null;
+alter table app_user add column if not exists version bigint default 0 not null;
+
+create index if not exists idx_account_owner on account (owner_user_id);
+create index if not exists idx_revoked_token_expires on revoked_token (expires_at);
+create index if not exists idx_snapshot_account_entry on balance_snapshot (account_id, last_entry_id);
+create index if not exists idx_ledger_account_entry on ledger_entry (account_id, id);
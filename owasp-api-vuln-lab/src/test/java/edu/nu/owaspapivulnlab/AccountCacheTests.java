@@ -0,0 +1,64 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.TransferEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AccountCacheTests {
+
+    @Autowired AccountCache cache;
+    @Autowired TransferEngine engine;
+    @Autowired AccountRepository accounts;
+
+    @Test
+    void balance_reads_are_served_from_cache_and_updated_by_transfers() {
+        Long id = accounts.save(Account.builder().ownerUserId(700L).iban("PK00-CACHE").balance(50.0).build()).getId();
+        long hits = cache.balanceStats().hitCount();
+
+        assertEquals(50.0, cache.balance(id).orElseThrow());
+        assertEquals(50.0, cache.balance(id).orElseThrow());
+        assertEquals(hits + 1, cache.balanceStats().hitCount());
+
+        engine.transfer(id, 20.0);
+        // Written through on commit: the next read is a hit and already reflects the transfer
+        assertEquals(30.0, cache.balance(id).orElseThrow());
+        assertEquals(hits + 2, cache.balanceStats().hitCount());
+    }
+
+    @Test
+    void owner_lists_are_cached_and_unknown_accounts_are_not() {
+        accounts.save(Account.builder().ownerUserId(701L).iban("PK00-OWNED").balance(1.0).build());
+
+        assertEquals(1, cache.ownedBy(701L).size());
+        long hits = cache.ownerStats().hitCount();
+        assertEquals("PK00-OWNED", cache.ownedBy(701L).get(0).getIban());
+        assertEquals(hits + 1, cache.ownerStats().hitCount());
+
+        long balanceHits = cache.balanceStats().hitCount();
+        assertTrue(cache.balance(-7L).isEmpty());
+        assertTrue(cache.balance(-7L).isEmpty());
+        assertEquals(balanceHits, cache.balanceStats().hitCount());
+    }
+
+    @Test
+    void owner_lists_cached_before_seeding_pick_up_the_seeded_accounts() {
+        assertTrue(cache.ownedBy(702L).isEmpty());
+        assertTrue(cache.ownedBy(703L).isEmpty());
+        accounts.save(Account.builder().ownerUserId(702L).iban("PK00-SEED-1").balance(1.0).build());
+        accounts.save(Account.builder().ownerUserId(703L).iban("PK00-SEED-2").balance(1.0).build());
+
+        cache.accountsAdded(702L);
+        assertEquals(1, cache.ownedBy(702L).size());
+        assertTrue(cache.ownedBy(703L).isEmpty());
+
+        cache.accountsAdded();
+        assertEquals(1, cache.ownedBy(703L).size());
+    }
+}
@@ -0,0 +1,181 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.dto.AuditEvent;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.AuditLog;
+import edu.nu.owaspapivulnlab.service.TransferEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuditLogTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired AuditLog audit;
+    @Autowired AppUserRepository users;
+    @Autowired AccountRepository accounts;
+    @Autowired TransferEngine engine;
+
+    @TempDir Path dir;
+
+    @Test
+    void transfers_and_deletions_are_readable_from_the_admin_endpoint() throws Exception {
+        AppUser user = users.save(AppUser.builder().username("audited").password("x").email("audited@lab.local")
+                .role("USER").build());
+        Account account = accounts.save(Account.builder().ownerUserId(user.getId()).iban("PK00-AUDIT").balance(50.0).build());
+        long from = audit.lastSequence() + 1;
+
+        mvc.perform(post("/api/accounts/" + account.getId() + "/transfer").param("amount", "12.5"))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/accounts/transfers/batch").contentType("application/json")
+                        .content("[{\"accountId\":" + account.getId() + ",\"amount\":2.5}]"))
+                .andExpect(status().isOk());
+        mvc.perform(delete("/api/users/" + user.getId())).andExpect(status().isOk());
+        awaitWritten(audit, from + 2);
+
+        String body = mvc.perform(get("/api/admin/audit").param("from", String.valueOf(from)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode events = om.readTree(body);
+        assertEquals(3, events.size());
+        assertEquals("TRANSFER", events.get(0).get("type").asText());
+        assertEquals(account.getId(), events.get(0).get("subjectId").asLong());
+        assertEquals(12.5, events.get(0).get("amount").asDouble());
+        assertEquals(2.5, events.get(1).get("amount").asDouble());
+        assertEquals("USER_DELETE", events.get(2).get("type").asText());
+        assertEquals(user.getId(), events.get(2).get("subjectId").asLong());
+        assertEquals(from + 2, events.get(2).get("sequence").asLong());
+    }
+
+    @Test
+    void transfers_are_audited_when_they_commit_even_if_nobody_waits_for_them() throws Exception {
+        Account account = accounts.save(Account.builder().ownerUserId(704L).iban("PK00-UNWAITED").balance(50.0).build());
+        long from = audit.lastSequence() + 1;
+
+        // Nobody looks at the outcome, as with a caller that timed out
+        engine.submit(account.getId(), 4.0, "gone-away");
+
+        awaitWritten(audit, from);
+        AuditEvent event = audit.read(from, 1).get(0);
+        assertEquals(AuditEvent.Type.TRANSFER, event.type());
+        assertEquals("gone-away", event.actor());
+        assertEquals(account.getId(), event.subjectId());
+        assertEquals(4.0, event.amount());
+    }
+
+    @Test
+    void concurrent_publishers_through_a_small_ring_lose_nothing_and_keep_their_order() throws Exception {
+        int producers = 4;
+        int perProducer = 10_000; // 40k records of 96 bytes: four 1 MB segments
+        AuditLog log = new AuditLog(true, dir.toString(), 64, 1, AuditLog.Durability.BATCH, 1000,
+                AuditLog.WhenFull.BLOCK, 256);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                String actor = "producer-" + p;
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        log.transfer(actor, i, i);
+                    }
+                }));
+            }
+            for (Future<?> f : done) {
+                f.get();
+            }
+            awaitWritten(log, (long) producers * perProducer);
+        } finally {
+            pool.shutdown();
+            log.destroy();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(4, files.filter(f -> f.toString().endsWith(".seg")).count());
+        }
+
+        // Reopened: gap-free sequences across segments, each producer's events in publishing order
+        AuditLog reopened = new AuditLog(true, dir.toString(), 64, 1, AuditLog.Durability.BATCH, 1000,
+                AuditLog.WhenFull.BLOCK, 256);
+        try {
+            assertEquals((long) producers * perProducer, reopened.lastSequence());
+            long[] next = new long[producers];
+            long[] expected = {1};
+            long resume = reopened.replay(1, event -> {
+                assertEquals(expected[0]++, event.sequence());
+                int producer = Integer.parseInt(event.actor().substring("producer-".length()));
+                assertEquals(next[producer]++, event.subjectId());
+            });
+            assertEquals((long) producers * perProducer + 1, resume);
+            for (long n : next) {
+                assertEquals(perProducer, n);
+            }
+            assertEquals(0, reopened.dropped());
+        } finally {
+            reopened.destroy();
+        }
+    }
+
+    @Test
+    void a_torn_last_record_is_dropped_and_overwritten_on_restart() throws Exception {
+        AuditLog log = new AuditLog(true, dir.toString(), 64, 1, AuditLog.Durability.BATCH, 1000,
+                AuditLog.WhenFull.BLOCK, 256);
+        for (int i = 1; i <= 3; i++) {
+            log.userDeleted("admin-with-a-rather-long-name-" + "\u00e9".repeat(25), i);
+        }
+        awaitWritten(log, 3);
+        log.destroy();
+
+        try (RandomAccessFile segment = new RandomAccessFile(dir.resolve("audit-00000000000000000001.seg").toFile(), "rw")) {
+            segment.seek(2 * 96 + 30);
+            segment.write(0x7f); // the third record no longer matches its checksum
+        }
+
+        AuditLog reopened = new AuditLog(true, dir.toString(), 64, 1, AuditLog.Durability.BATCH, 1000,
+                AuditLog.WhenFull.BLOCK, 256);
+        try {
+            assertEquals(2, reopened.lastSequence());
+            reopened.userDeleted("admin", 99);
+            awaitWritten(reopened, 3);
+            List<AuditEvent> events = reopened.read(1, 10);
+            assertEquals(3, events.size());
+            assertEquals(99, events.get(2).subjectId());
+            String actor = events.get(0).actor();
+            assertTrue(actor.startsWith("admin-with-a-rather-long-name-\u00e9"), actor);
+            assertFalse(actor.contains("\ufffd"), "truncated on a character boundary: " + actor);
+        } finally {
+            reopened.destroy();
+        }
+    }
+
+    private static void awaitWritten(AuditLog log, long sequence) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (log.lastSequence() < sequence) {
+            assertTrue(System.currentTimeMillis() < deadline, "writer stuck at " + log.lastSequence());
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.UserSearchIndex;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BatchTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired AppUserRepository users;
+    @Autowired AccountRepository accounts;
+    @Autowired UserSearchIndex searchIndex;
+    @Autowired Statistics statistics;
+
+    @Test
+    void creates_users_in_batched_inserts_with_a_result_per_item() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 60; i++) {
+            body.append(String.format("{\"username\":\"batch%d\",\"password\":\"pw\",\"email\":\"batch%d@lab.local\",\"role\":\"USER\"},", i, i));
+        }
+        body.append("{\"username\":\"batch3\",\"password\":\"pw\",\"email\":\"other@lab.local\"},");
+        body.append("{\"username\":\"\",\"password\":\"pw\"},");
+        body.append("{\"username\":\"batchx\",\"password\":\"pw\",\"email\":\"not-an-email\"},");
+        body.append("{\"username\":\"" + "u".repeat(300) + "\",\"password\":\"pw\"}]");
+
+        long statements = statistics.getPrepareStatementCount();
+        JsonNode result = submit("/api/users/batch", body.toString());
+        long prepared = statistics.getPrepareStatementCount() - statements;
+
+        assertEquals(60, result.get("succeeded").asInt());
+        assertEquals(4, result.get("failed").asInt());
+        JsonNode items = result.get("items");
+        assertEquals("created", items.get(0).get("status").asText());
+        assertEquals("duplicate", items.get(60).get("status").asText());
+        assertEquals("invalid", items.get(61).get("status").asText());
+        assertEquals("invalid", items.get(62).get("status").asText());
+        assertTrue(items.get(62).get("error").asText().contains("email"));
+        assertEquals("invalid", items.get(63).get("status").asText());
+        assertTrue(items.get(63).get("error").asText().contains("username"));
+
+        assertTrue(users.findByUsername("batch59").isPresent());
+        assertEquals(1, searchIndex.search("batch59", 0, 10).size());
+        // Two chunks: existence checks, id blocks and one batched insert each, not one insert per user
+        assertTrue(prepared < 20, "prepared " + prepared + " statements for 60 inserts");
+    }
+
+    @Test
+    void a_chunk_the_database_rejects_is_retried_per_user() throws Exception {
+        JsonNode result = submit("/api/users/batch",
+                "[{\"username\":\"retried\",\"password\":\"pw\",\"email\":\"retried@lab.local\"},"
+                + "{\"username\":\"long-role\",\"password\":\"pw\",\"role\":\"" + "R".repeat(300) + "\"}]");
+
+        JsonNode items = result.get("items");
+        assertEquals("created", items.get(0).get("status").asText());
+        assertEquals("rejected", items.get(1).get("status").asText());
+        long id = items.get(0).get("id").asLong();
+        assertEquals("retried", users.findById(id).orElseThrow().getUsername());
+        assertEquals(List.of(id), searchIndex.search("retried", 0, 10));
+    }
+
+    @Test
+    void a_syntax_error_keeps_what_came_before_it() throws Exception {
+        JsonNode result = submit("/api/users/batch",
+                "[{\"username\":\"early\",\"password\":\"pw\",\"email\":\"early@lab.local\"}, {\"username\": ");
+        assertEquals(1, result.get("succeeded").asInt());
+        assertEquals("malformed", result.get("items").get(1).get("status").asText());
+
+        mvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON).content("{\"username\":\"x\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void transfers_report_each_item() throws Exception {
+        Long id = accounts.save(Account.builder().ownerUserId(800L).iban("PK00-BATCH").balance(100.0).build()).getId();
+        JsonNode result = submit("/api/accounts/transfers/batch", "[{\"accountId\":" + id + ",\"amount\":10},"
+                + "{\"accountId\":" + id + ",\"amount\":5.5},"
+                + "{\"accountId\":-1,\"amount\":1},"
+                + "{\"amount\":1}]");
+
+        JsonNode items = result.get("items");
+        assertEquals(2, result.get("succeeded").asInt());
+        assertEquals(90.0, items.get(0).get("remaining").asDouble());
+        assertEquals(84.5, items.get(1).get("remaining").asDouble());
+        assertEquals("failed", items.get(2).get("status").asText());
+        assertEquals("invalid", items.get(3).get("status").asText());
+    }
+
+    private JsonNode submit(String path, String body) throws Exception {
+        return om.readTree(mvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,69 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Users per second through POST /api/users one at a time versus one POST /api/users/batch.
+// BCrypt runs at its minimum cost so the comparison is about the request and persistence path.
+@Tag("perf")
+@SpringBootTest(properties = {"app.password.bcrypt-cost=4", "app.ratelimit.enabled=false"})
+@AutoConfigureMockMvc
+class BatchThroughputTests {
+
+    private static final int USERS = 2000;
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void batch_creation_outpaces_single_requests() throws Exception {
+        // Warm both paths up before timing them
+        single("warm", 200);
+        batch("warmb", 200);
+
+        long start = System.nanoTime();
+        single("single", USERS);
+        double singleRate = USERS / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        batch("batched", USERS);
+        double batchRate = USERS / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("Created %d users: %.0f/s one per request, %.0f/s batched (%.1fx)%n",
+                USERS, singleRate, batchRate, batchRate / singleRate);
+        assertTrue(batchRate > singleRate, "batched " + batchRate + "/s vs single " + singleRate + "/s");
+    }
+
+    private void single(String prefix, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON).content(user(prefix, i)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private void batch(String prefix, int count) throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            body.append(i == 0 ? "" : ",").append(user(prefix, i));
+        }
+        String result = mvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON).content(body.append(']').toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(count, om.readTree(result).get("succeeded").asInt());
+    }
+
+    private static String user(String prefix, int i) {
+        return String.format("{\"username\":\"%s%d\",\"password\":\"pw\",\"email\":\"%s%d@lab.local\",\"role\":\"USER\"}",
+                prefix, i, prefix, i);
+    }
+}
@@ -0,0 +1,122 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.config.BulkDataSeeder;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkDataSeederTests {
+
+    private static final int USERS = 20_000;
+    private static final int ACCOUNTS_PER_USER = 2;
+
+    @Test
+    void seeds_the_same_rows_whatever_the_thread_count() {
+        List<String> single;
+        try (ConfigurableApplicationContext app = start("bulk-single", 1)) {
+            JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+            // Two demo users and their accounts, then the bulk rows
+            assertEquals(USERS + 2, jdbc.queryForObject("select count(*) from app_user", Long.class));
+            assertEquals(USERS * ACCOUNTS_PER_USER + 2, jdbc.queryForObject("select count(*) from account", Long.class));
+            assertEquals(0, jdbc.queryForObject(
+                    "select count(*) from account a left join app_user u on u.id = a.owner_user_id where u.id is null",
+                    Long.class));
+            single = rows(jdbc);
+        }
+        try (ConfigurableApplicationContext app = start("bulk-parallel", 4)) {
+            assertEquals(single, rows(app.getBean(JdbcTemplate.class)));
+        }
+    }
+
+    @Test
+    void entities_saved_after_seeding_do_not_collide_and_seeded_users_can_log_in() {
+        try (ConfigurableApplicationContext app = start("bulk-ids", 0)) {
+            AppUserRepository users = app.getBean(AppUserRepository.class);
+            AccountRepository accounts = app.getBean(AccountRepository.class);
+            long maxUser = app.getBean(JdbcTemplate.class).queryForObject("select max(id) from app_user", Long.class);
+
+            // Enough saves to use up Hibernate's current id block and fetch new ones from the sequences
+            List<AppUser> saved = users.saveAll(IntStream.range(0, 120).mapToObj(i -> AppUser.builder()
+                    .username("after-seed-" + i).password("pw").role("USER").build()).toList());
+            accounts.saveAll(saved.stream().map(u -> Account.builder()
+                    .ownerUserId(u.getId()).iban("PK00-AFTER-" + u.getId()).balance(1.0).build()).toList());
+            assertEquals(USERS + 2 + 120, users.count());
+            assertEquals(USERS * ACCOUNTS_PER_USER + 2 + 120, accounts.count());
+
+            AppUser bulk = users.findById(maxUser).orElseThrow();
+            assertTrue(bulk.getUsername().endsWith(Integer.toString(USERS - 1)));
+            assertTrue(app.getBean(PasswordHashingService.class).verify("seed-password", bulk.getPassword()).matched());
+        }
+    }
+
+    @Test
+    void restart_does_not_seed_twice() throws Exception {
+        try (ConfigurableApplicationContext app = start("bulk-rerun", 0)) {
+            JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+            app.getBean(BulkDataSeeder.class).run(null);
+            assertEquals(USERS + 2, jdbc.queryForObject("select count(*) from app_user", Long.class));
+        }
+    }
+
+    @Test
+    void sharded_seeding_puts_accounts_on_their_owners_shard() {
+        try (ConfigurableApplicationContext app = start("bulk-sharded", 2, "--app.shards.count=3",
+                "--app.shards.url-template=jdbc:h2:mem:bulk-sharded-{index};DB_CLOSE_DELAY=-1")) {
+            AccountShards shards = app.getBean(AccountShards.class);
+            JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+            List<Long> misplaced = shards.fanOut(shard -> jdbc.query("select id, owner_user_id from account", rs -> {
+                long wrong = 0;
+                while (rs.next()) {
+                    if (shards.shardOfAccount(rs.getLong(1)) != shard || shards.shardOfOwner(rs.getLong(2)) != shard) {
+                        wrong++;
+                    }
+                }
+                return wrong;
+            }));
+            assertEquals(List.of(0L, 0L, 0L), misplaced);
+            List<Long> counts = shards.fanOut(shard -> jdbc.queryForObject("select count(*) from account", Long.class));
+            assertEquals(USERS * ACCOUNTS_PER_USER + 2, counts.stream().mapToLong(Long::longValue).sum());
+            assertTrue(counts.stream().allMatch(c -> c > USERS * ACCOUNTS_PER_USER / 4), counts.toString());
+
+            // Hibernate carries on after the ids the seeder reserved on each shard
+            AccountRepository accounts = app.getBean(AccountRepository.class);
+            for (long owner = 1; owner <= 30; owner++) {
+                long o = owner;
+                Account saved = shards.onOwner(owner, () -> accounts.save(Account.builder()
+                        .ownerUserId(o).iban("PK00-AFTER-" + o).balance(1.0).build()));
+                assertEquals(shards.shardOfOwner(owner), shards.shardOfAccount(saved.getId()));
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String database, int threads, String... extra) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--app.password.bcrypt-cost=4",
+                "--app.seed.bulk.enabled=true",
+                "--app.seed.bulk.users=" + USERS,
+                "--app.seed.bulk.accounts-per-user=" + ACCOUNTS_PER_USER,
+                "--app.seed.bulk.threads=" + threads,
+                "--app.seed.bulk.batch-size=500"));
+        args.addAll(List.of(extra));
+        return new SpringApplicationBuilder(OwaspApiVulnLabApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static List<String> rows(JdbcTemplate jdbc) {
+        return jdbc.queryForList("select u.id || u.username || u.email || u.role || a.id || a.iban || a.balance "
+                + "from app_user u join account a on a.owner_user_id = u.id order by a.id", String.class);
+    }
+}
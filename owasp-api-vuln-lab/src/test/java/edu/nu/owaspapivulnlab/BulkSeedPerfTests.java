@@ -0,0 +1,53 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.config.BulkDataSeeder;
+import edu.nu.owaspapivulnlab.config.SeedRunner;
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import edu.nu.owaspapivulnlab.service.UserSearchIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn -Pperf test -Dtest=BulkSeedPerfTests [-Dseed.users=2500000 -Dseed.threads=0]
+// 2.5M users with three accounts each is 10M rows. The seeder is built here rather than enabled
+// through app.seed.bulk so the search index does not load all of them into the 256m test heap.
+@Tag("perf")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/perf/seed;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.password.bcrypt-cost=4"
+})
+class BulkSeedPerfTests {
+
+    private static final long USERS = Long.getLong("seed.users", 2_500_000);
+    private static final int ACCOUNTS_PER_USER = 3;
+
+    @Autowired DataSource dataSource;
+    @Autowired AccountShards shards;
+    @Autowired AccountCache accountCache;
+    @Autowired PasswordHashingService passwords;
+    @Autowired UserSearchIndex searchIndex;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void seeds_ten_million_rows() throws Exception {
+        long users = jdbc.queryForObject("select count(*) from app_user", Long.class);
+        long accounts = jdbc.queryForObject("select count(*) from account", Long.class);
+
+        BulkDataSeeder.Report report = new BulkDataSeeder(dataSource, shards, accountCache, passwords, searchIndex,
+                new SeedRunner(false), USERS, ACCOUNTS_PER_USER, 42, Integer.getInteger("seed.threads", 0), 1000, "seed-password").seed();
+        System.out.printf("Seeded %d rows in %d ms (%.0f rows/s) on %d CPUs%n", report.rows(), report.millis(),
+                report.rowsPerSecond(), Runtime.getRuntime().availableProcessors());
+
+        assertEquals(users + USERS, jdbc.queryForObject("select count(*) from app_user", Long.class));
+        assertEquals(accounts + USERS * ACCOUNTS_PER_USER, jdbc.queryForObject("select count(*) from account", Long.class));
+    }
+}
@@ -0,0 +1,93 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+// A client polling /api/users/me and /api/accounts/mine with nothing changing in between: every poll
+// re-downloading the body, against polls that send back the last ETag. Reports body bytes and CPU time
+// per poll; MockMvc runs the whole request on the test thread, so its CPU clock covers the server side.
+// Run with: mvn -Pperf test -Dtest=ConditionalGetPerfTests [-Dpoll.rounds=5000]
+@Tag("perf")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-get-perf;DB_CLOSE_DELAY=-1",
+        "app.ratelimit.enabled=false"
+})
+@AutoConfigureMockMvc
+class ConditionalGetPerfTests {
+
+    private static final String EMAIL = "mobile@lab.local";
+    private static final int ROUNDS = Integer.getInteger("poll.rounds", 5_000);
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired AppUserRepository users;
+    @Autowired AccountRepository accounts;
+    @Autowired PasswordHashingService passwords;
+
+    @Test
+    void polling_with_etags_saves_bandwidth_and_cpu() throws Exception {
+        AppUser user = users.save(AppUser.builder().username(EMAIL).password(passwords.hash("mobile123"))
+                .email(EMAIL).role("USER").build());
+        for (int i = 0; i < 3; i++) {
+            accounts.save(Account.builder().ownerUserId(user.getId()).iban("PK00-MOBILE-" + i).balance(100.0 * i).build());
+        }
+        String login = mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + EMAIL + "\",\"password\":\"mobile123\"}")).andReturn().getResponse().getContentAsString();
+        String token = "Bearer " + om.readTree(login).get("token").asText();
+
+        for (String path : new String[]{"/api/users/me", "/api/accounts/mine"}) {
+            Cost full = poll(path, token, false);
+            Cost conditional = poll(path, token, true);
+            System.out.printf("%-18s always 200: %s%n%-18s If-None-Match: %s%n", path, full, "", conditional);
+            assertTrue(conditional.bytes() < full.bytes());
+        }
+    }
+
+    private Cost poll(String path, String token, boolean conditional) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        String etag = mvc.perform(get(path).header("Authorization", token)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        long bytes = 0;
+        long cpu = 0;
+        for (int pass = 0; pass < 2; pass++) { // the first pass warms up
+            bytes = 0;
+            long start = threads.getCurrentThreadCpuTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                var request = get(path).header("Authorization", token);
+                if (conditional) {
+                    request.header(HttpHeaders.IF_NONE_MATCH, etag);
+                }
+                MockHttpServletResponse response = mvc.perform(request).andReturn().getResponse();
+                assertEquals(conditional ? 304 : 200, response.getStatus());
+                bytes += response.getContentAsByteArray().length;
+            }
+            cpu = threads.getCurrentThreadCpuTime() - start;
+        }
+        return new Cost(bytes / ROUNDS, cpu / ROUNDS / 1_000);
+    }
+
+    private record Cost(long bytes, long cpuMicros) {
+        @Override
+        public String toString() {
+            return String.format("%4d B body/poll %6d us CPU/poll", bytes, cpuMicros);
+        }
+    }
+}
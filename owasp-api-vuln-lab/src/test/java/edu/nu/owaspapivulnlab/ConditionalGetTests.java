@@ -0,0 +1,114 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// /me and /{id} look the caller up by email, so the polling user logs in with its email as username
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+    private static final String EMAIL = "poller@lab.local";
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired AppUserRepository users;
+    @Autowired AccountRepository accounts;
+    @Autowired PasswordHashingService passwords;
+    @Autowired Statistics statistics;
+
+    private AppUser poller;
+    private String token;
+
+    @BeforeEach
+    void seed() throws Exception {
+        poller = users.findByUsername(EMAIL).orElseGet(() -> {
+            AppUser user = users.save(AppUser.builder().username(EMAIL).password(passwords.hash("poll123"))
+                    .email(EMAIL).role("USER").build());
+            accounts.save(Account.builder().ownerUserId(user.getId()).iban("PK00-POLL").balance(100.0).build());
+            return user;
+        });
+        String login = mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + EMAIL + "\",\"password\":\"poll123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = om.readTree(login).get("token").asText();
+    }
+
+    @Test
+    void unchanged_user_is_a_304_answered_from_a_version_lookup() throws Exception {
+        String etag = etag("/api/users/me");
+        assertEquals(etag, etag("/api/users/" + poller.getId()));
+
+        long statements = statistics.getPrepareStatementCount();
+        MvcResult notModified = mvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        assertEquals(0, notModified.getResponse().getContentLength());
+        assertEquals(1, statistics.getPrepareStatementCount() - statements, "only the version lookup");
+
+        AppUser changed = users.findById(poller.getId()).orElseThrow();
+        changed.setRole("AUDITOR");
+        users.save(changed);
+        mvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.role").value("AUDITOR"))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    void another_users_id_is_still_forbidden_with_a_validator() throws Exception {
+        mvc.perform(get("/api/users/" + (poller.getId() + 1)).header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"u1v0\""))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void account_list_tag_changes_with_the_balance() throws Exception {
+        String etag = etag("/api/accounts/mine");
+        mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Long account = accounts.findByOwnerUserId(poller.getId()).get(0).getId();
+        mvc.perform(post("/api/accounts/" + account + "/transfer").param("amount", "1"))
+                .andExpect(status().isOk());
+        String after = mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, after);
+    }
+
+    private String etag(String path) throws Exception {
+        String etag = mvc.perform(get(path).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("\""), "strong validator: " + etag);
+        return etag;
+    }
+}
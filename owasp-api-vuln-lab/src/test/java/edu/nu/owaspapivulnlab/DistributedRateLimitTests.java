@@ -0,0 +1,51 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.config.RateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two application contexts stand in for two instances behind a load balancer, sharing one H2 database
+class DistributedRateLimitTests {
+
+    @Test
+    void instances_sharing_a_database_share_one_budget() {
+        try (ConfigurableApplicationContext a = start("strict", 0);
+             ConfigurableApplicationContext b = start("strict", 0)) {
+            int allowed = consumeAlternating(a.getBean(RateLimiter.class), b.getBean(RateLimiter.class), 40);
+            assertEquals(10, allowed);
+        }
+    }
+
+    @Test
+    void local_prefetch_overshoots_by_at_most_the_unsynchronized_budget_per_instance() {
+        try (ConfigurableApplicationContext a = start("delayed", 3);
+             ConfigurableApplicationContext b = start("delayed", 3)) {
+            int allowed = consumeAlternating(a.getBean(RateLimiter.class), b.getBean(RateLimiter.class), 40);
+            assertTrue(allowed >= 10 && allowed <= 10 + 2 * 3, "allowed " + allowed);
+        }
+    }
+
+    private static int consumeAlternating(RateLimiter a, RateLimiter b, int requests) {
+        int allowed = 0;
+        for (int i = 0; i < requests; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+            if ((i % 2 == 0 ? a : b).tryConsume(request).isConsumed()) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    private static ConfigurableApplicationContext start(String db, long unsynchronizedTokens) {
+        return new SpringApplicationBuilder(OwaspApiVulnLabApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:ratelimit-" + db + ";DB_CLOSE_DELAY=-1",
+                "--app.ratelimit.mode=jdbc",
+                "--app.ratelimit.jdbc.max-unsynchronized-tokens=" + unsynchronizedTokens,
+                "--app.ratelimit.jdbc.max-unsynchronized-time=1m");
+    }
+}
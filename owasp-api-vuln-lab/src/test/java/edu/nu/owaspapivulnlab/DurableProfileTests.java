@@ -0,0 +1,72 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.config.H2StoreMaintenance;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableProfileTests {
+
+    @Test
+    void data_written_before_a_restart_is_there_after_it() {
+        Path path = Path.of("target", "durable", "restart-" + System.nanoTime(), "apilab");
+        long carolId;
+        try (ConfigurableApplicationContext app = start(path)) {
+            AppUser carol = app.getBean(AppUserRepository.class).save(AppUser.builder()
+                    .username("carol").password("pw").role("USER").build());
+            app.getBean(AccountRepository.class).save(Account.builder()
+                    .ownerUserId(carol.getId()).iban("PK00-CAROL").balance(10.0).build());
+            carolId = carol.getId();
+        }
+        try (ConfigurableApplicationContext app = start(path)) {
+            AppUserRepository users = app.getBean(AppUserRepository.class);
+            assertEquals("carol", users.findById(carolId).orElseThrow().getUsername());
+            assertEquals(1, app.getBean(AccountRepository.class).findByOwnerUserId(carolId).size());
+            // The demo users were seeded once, and the sequences carried on where they stopped
+            assertEquals(3, users.count());
+            AppUser dave = users.save(AppUser.builder().username("dave").password("pw").role("USER").build());
+            assertTrue(dave.getId() > carolId);
+        }
+    }
+
+    @Test
+    void pool_and_store_statistics_are_exported() {
+        try (ConfigurableApplicationContext app = start(Path.of("target", "durable", "metrics-" + System.nanoTime(), "apilab"),
+                "--app.shards.count=2")) {
+            H2StoreMaintenance maintenance = app.getBean(H2StoreMaintenance.class);
+            maintenance.maintain();
+            assertTrue(Long.parseLong(maintenance.info(0).get("info.FILE_SIZE")) > 0);
+            assertEquals("64", maintenance.info(0).get("info.CACHE_MAX_SIZE"));
+            assertTrue(Long.parseLong(maintenance.info(1).get("info.FILE_SIZE")) > 0);
+
+            StringBuilder out = new StringBuilder();
+            app.getBean(MetricsRegistry.class).writePrometheus(out);
+            String text = out.toString();
+            assertTrue(text.contains("hikari_connection_acquire_seconds_count{pool=\"apilab\"}"), text);
+            assertTrue(text.contains("hikari_connections_max{pool=\"apilab\"} 16"), text);
+            assertTrue(text.contains("h2_store_file_bytes{shard=\"0\"}"), text);
+            assertTrue(text.contains("h2_store_file_bytes{shard=\"1\"}"), text);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Path path, String... args) {
+        List<String> all = new ArrayList<>(List.of("--server.port=0",
+                "--app.durable.path=" + path.toAbsolutePath(),
+                "--app.password.bcrypt-cost=4"));
+        all.addAll(List.of(args));
+        return new SpringApplicationBuilder(OwaspApiVulnLabApplication.class)
+                .profiles("durable")
+                .run(all.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,84 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Restart recovery of the durable profile against the in-memory default. Seeds the bulk users, restarts
+// on the same file and times point reads of a user and their accounts: the first pass after the restart
+// pays for page-cache misses, the second is served from the warm cache and compares with memory.
+// Run with: mvn -Pperf test -Dtest=DurableRestartPerfTests [-Ddurable.users=100000 -Ddurable.reads=20000]
+@Tag("perf")
+class DurableRestartPerfTests {
+
+    private static final int USERS = Integer.getInteger("durable.users", 100_000);
+    private static final int READS = Integer.getInteger("durable.reads", 20_000);
+
+    @Test
+    void warm_reads_after_a_restart_are_close_to_memory() {
+        List<String> report = new ArrayList<>();
+        try (ConfigurableApplicationContext app = start("--spring.datasource.url=jdbc:h2:mem:restart-perf;DB_CLOSE_DELAY=-1")) {
+            JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+            long[] ids = ids(jdbc);
+            read(jdbc, ids);
+            report.add(line("memory", read(jdbc, ids)));
+        }
+
+        Path path = Path.of("target", "perf", "durable-" + System.nanoTime(), "apilab").toAbsolutePath();
+        long seeded;
+        try (ConfigurableApplicationContext app = start("--spring.profiles.active=durable", "--app.durable.path=" + path)) {
+            seeded = app.getBean(JdbcTemplate.class).queryForObject("select count(*) from app_user", Long.class);
+        }
+        long restart = System.nanoTime();
+        try (ConfigurableApplicationContext app = start("--spring.profiles.active=durable", "--app.durable.path=" + path)) {
+            report.add(String.format("durable restart ready in %d ms", (System.nanoTime() - restart) / 1_000_000));
+            JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+            assertEquals(seeded, jdbc.queryForObject("select count(*) from app_user", Long.class));
+            long[] ids = ids(jdbc);
+            report.add(line("durable cold", read(jdbc, ids)));
+            report.add(line("durable warm", read(jdbc, ids)));
+        }
+        report.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(String... args) {
+        List<String> all = new ArrayList<>(List.of("--server.port=0", "--app.password.bcrypt-cost=4",
+                "--app.seed.bulk.enabled=true", "--app.seed.bulk.users=" + USERS));
+        all.addAll(List.of(args));
+        return new SpringApplicationBuilder(OwaspApiVulnLabApplication.class).run(all.toArray(String[]::new));
+    }
+
+    // The same random sample of user ids for every mode
+    private static long[] ids(JdbcTemplate jdbc) {
+        List<Long> all = jdbc.queryForList("select id from app_user order by id", Long.class);
+        SplittableRandom random = new SplittableRandom(7);
+        return random.ints(READS, 0, all.size()).mapToLong(all::get).toArray();
+    }
+
+    private static LatencyHistogram.Snapshot read(JdbcTemplate jdbc, long[] ids) {
+        LatencyHistogram latency = new LatencyHistogram();
+        for (long id : ids) {
+            long start = System.nanoTime();
+            jdbc.queryForMap("select id, username, email, role from app_user where id = ?", id);
+            jdbc.queryForList("select id, iban, balance from account where owner_user_id = ?", id);
+            latency.recordSince(start);
+        }
+        return latency.snapshot();
+    }
+
+    private static String line(String mode, LatencyHistogram.Snapshot latency) {
+        return String.format("%-13s %d reads  mean %.1f us  p50 %.1f us  p99 %.1f us  max %.1f us", mode,
+                latency.count(), latency.meanNanos() / 1e3, latency.valueAt(0.5) / 1e3, latency.valueAt(0.99) / 1e3,
+                latency.maxNanos() / 1e3);
+    }
+}
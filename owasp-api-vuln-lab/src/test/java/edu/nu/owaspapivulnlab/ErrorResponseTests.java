@@ -0,0 +1,56 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.exception.ConflictException;
+import edu.nu.owaspapivulnlab.exception.InvalidRequestException;
+import edu.nu.owaspapivulnlab.exception.NotFoundException;
+import edu.nu.owaspapivulnlab.exception.ServiceOverloadedException;
+import edu.nu.owaspapivulnlab.web.GlobalErrorHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ErrorResponseTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired GlobalErrorHandler handler;
+
+    @Test
+    void misses_are_404_with_a_short_json_body() throws Exception {
+        mvc.perform(get("/api/accounts/987654/balance"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().json("{\"error\":\"Account not found\"}", true));
+        mvc.perform(post("/api/accounts/987654/transfer").param("amount", "1"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Account not found"));
+    }
+
+    @Test
+    void duplicate_usernames_are_409() throws Exception {
+        String body = "{\"username\":\"twice\",\"password\":\"pw\",\"email\":\"twice@lab.local\"}";
+        mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Username or email already exists"));
+    }
+
+    @Test
+    void expected_errors_carry_no_stack_and_reuse_one_body_per_message() {
+        NotFoundException miss = new NotFoundException("Account not found");
+        assertEquals(0, miss.getStackTrace().length);
+        assertEquals(0, new ServiceOverloadedException("busy").getStackTrace().length);
+        assertEquals(0, new InvalidRequestException("bad").getStackTrace().length);
+        assertSame(handler.expected(miss).getBody(), handler.expected(new NotFoundException("Account not found")).getBody());
+        assertNotSame(handler.expected(miss).getBody(), handler.expected(new ConflictException("Account not found")).getBody());
+    }
+}
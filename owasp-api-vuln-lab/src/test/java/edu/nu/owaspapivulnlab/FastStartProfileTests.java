@@ -0,0 +1,44 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Boots the faststart profile: db/schema.sql must satisfy Hibernate's validation of every entity,
+// and the seeders run in the background after startup
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:faststart;DB_CLOSE_DELAY=-1",
+        "app.password.bcrypt-cost=4"
+})
+@ActiveProfiles("faststart")
+@AutoConfigureMockMvc
+class FastStartProfileTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired AppUserRepository users;
+
+    @Test
+    void seeded_users_can_log_in_and_be_found_once_background_seeding_finishes() throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (users.findByUsername("bob").isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "seeding did not finish");
+            Thread.sleep(50);
+        }
+        mvc.perform(post("/api/auth/login").contentType("application/json")
+                        .content("{\"username\":\"bob\",\"password\":\"bob123\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isString());
+        mvc.perform(get("/api/users/search").param("q", "bob"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].username", hasItem("bob")));
+    }
+}
@@ -0,0 +1,36 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.service.JwtService;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTests {
+
+    JwtService jwt = new JwtService("secret123", 60, 100, 300);
+
+    @Test
+    void verify_caches_claims_for_reused_token() {
+        String token = jwt.issue("alice", Map.of("role", "USER"));
+
+        assertEquals("alice", jwt.verify(token).getSubject());
+        assertEquals("USER", jwt.verify(token).get("role"));
+
+        assertEquals(1, jwt.cacheStats().missCount());
+        assertEquals(1, jwt.cacheStats().hitCount());
+    }
+
+    @Test
+    void verify_rejects_tampered_and_expired_tokens() {
+        String token = jwt.issue("alice", Map.of());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwt.verify(tampered));
+
+        JwtService expired = new JwtService("secret123", -1, 100, 300);
+        assertThrows(JwtException.class, () -> expired.verify(expired.issue("alice", Map.of())));
+        assertEquals(0, expired.cacheSize());
+    }
+}
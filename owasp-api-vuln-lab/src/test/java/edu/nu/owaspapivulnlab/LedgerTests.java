@@ -0,0 +1,101 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.BalanceSnapshot;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.BalanceSnapshotRepository;
+import edu.nu.owaspapivulnlab.repo.LedgerEntryRepository;
+import edu.nu.owaspapivulnlab.service.LedgerService;
+import edu.nu.owaspapivulnlab.service.TransferEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LedgerTests {
+
+    @Autowired TransferEngine engine;
+    @Autowired LedgerService ledger;
+    @Autowired AccountRepository accounts;
+    @Autowired LedgerEntryRepository entries;
+    @Autowired BalanceSnapshotRepository snapshots;
+    @Autowired PlatformTransactionManager transactions;
+
+    @Test
+    void transfers_append_entries_and_leave_the_account_row_untouched() {
+        Long id = accounts.save(Account.builder().ownerUserId(500L).iban("PK00-LEDGER").balance(100.0).build()).getId();
+
+        assertEquals(90.0, engine.transfer(id, 10.0));
+        assertEquals(85.0, engine.transfer(id, 5.0));
+
+        assertEquals(85.0, ledger.balance(id).orElseThrow());
+        assertEquals(100.0, accounts.findOpeningBalanceById(id).orElseThrow());
+    }
+
+    @Test
+    void balance_is_latest_snapshot_plus_entries_after_it() {
+        Long id = accounts.save(Account.builder().ownerUserId(501L).iban("PK00-SNAP").balance(1000.0).build()).getId();
+        for (int i = 0; i < 20; i++) {
+            engine.transfer(id, 1.0);
+        }
+
+        assertTrue(ledger.compact() >= 1);
+        BalanceSnapshot snapshot = snapshots.findFirstByAccountIdOrderByLastEntryIdDesc(id).orElseThrow();
+        assertEquals(980.0, snapshot.getBalance());
+
+        engine.transfer(id, 30.0);
+        // Only the entry after the snapshot has to be read to reconstruct the balance
+        assertEquals(-30.0, entries.sumBetween(id, snapshot.getLastEntryId(), Long.MAX_VALUE));
+        assertEquals(950.0, ledger.balance(id).orElseThrow());
+
+        ledger.compact();
+        assertEquals(950.0, snapshots.findFirstByAccountIdOrderByLastEntryIdDesc(id).orElseThrow().getBalance());
+        assertEquals(0, ledger.compact(), "accounts without new entries are not snapshotted again");
+    }
+
+    @Test
+    void entries_committed_after_higher_ids_are_still_compacted() throws Exception {
+        Long late = accounts.save(Account.builder().ownerUserId(502L).iban("PK00-LATE").balance(100.0).build()).getId();
+        Long early = accounts.save(Account.builder().ownerUserId(503L).iban("PK00-EARLY").balance(100.0).build()).getId();
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Takes its entry id first and commits last
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> new TransactionTemplate(transactions)
+                .executeWithoutResult(status -> {
+                    ledger.append(List.of(LedgerService.debit(late, 10.0, Instant.now())));
+                    appended.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        appended.await();
+        assertEquals(90.0, engine.transfer(early, 10.0));
+
+        ledger.compact();
+        assertTrue(snapshots.findFirstByAccountIdOrderByLastEntryIdDesc(early).isPresent());
+        release.countDown();
+        slow.get();
+
+        assertTrue(ledger.compact() >= 1);
+        BalanceSnapshot snapshot = snapshots.findFirstByAccountIdOrderByLastEntryIdDesc(late).orElseThrow();
+        assertEquals(90.0, snapshot.getBalance());
+        assertTrue(snapshot.getLastEntryId() < snapshots.findFirstByAccountIdOrderByLastEntryIdDesc(early)
+                .orElseThrow().getLastEntryId());
+    }
+
+    @Test
+    void unknown_account_has_no_balance() {
+        assertTrue(ledger.balance(-42L).isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void histogram_quantiles_are_within_bucket_precision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.count());
+        assertEquals(100_000_000, snapshot.maxNanos());
+        assertWithin(50_000_000, snapshot.valueAt(0.5));
+        assertWithin(99_000_000, snapshot.valueAt(0.99));
+        assertWithin(99_900_000, snapshot.valueAt(0.999));
+        assertEquals(0, new LatencyHistogram().snapshot().valueAt(0.99));
+    }
+
+    @Test
+    void snapshots_can_be_taken_while_writers_record() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] writers = new Thread[4];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new Thread(() -> {
+                for (int n = 0; n < 200_000; n++) {
+                    histogram.record(ThreadLocalRandom.current().nextLong(1, 1_000_000));
+                }
+            });
+            writers[i].start();
+        }
+        long previous = 0;
+        for (int i = 0; i < 100; i++) {
+            long count = histogram.snapshot().count();
+            assertTrue(count >= previous);
+            previous = count;
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(800_000, histogram.snapshot().count());
+    }
+
+    @Test
+    void prometheus_endpoint_reports_routes_repositories_jwt_and_errors() throws Exception {
+        String login = mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"bob\",\"password\":\"bob123\"}"))
+                .andReturn().getResponse().getContentAsString();
+        String token = om.readTree(login).get("token").asText();
+        mvc.perform(get("/api/accounts/1/balance").header("Authorization", "Bearer " + token));
+        mvc.perform(get("/api/accounts/999999/balance"));
+
+        String body = mvc.perform(get("/api/admin/metrics/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andExpect(content().string(containsString("# TYPE http_server_requests_seconds summary")))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("http_server_requests_seconds{route=\"/api/accounts/{id}/balance\",method=\"GET\",quantile=\"0.99\"}"), body);
+        assertTrue(body.contains("repository_call_seconds_count{repository=\"AppUserRepository\",method=\"findByUsername\"}"), body);
+        assertTrue(body.contains("jwt_verify_seconds_count "), body);
+        assertTrue(body.contains("api_errors_total{exception=\"NotFoundException\"}"), body);
+        assertTrue(body.contains("ratelimit_rejections_total{route=\"login\"}"), body);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 8, "expected ~" + expected + " but was " + actual);
+    }
+}
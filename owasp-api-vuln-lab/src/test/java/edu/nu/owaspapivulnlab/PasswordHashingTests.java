@@ -0,0 +1,102 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.exception.ServiceOverloadedException;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PasswordHashingTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired AppUserRepository users;
+    @Autowired PasswordHashingService passwords;
+
+    @Test
+    void legacy_and_weaker_hashes_are_upgraded_on_match_only() {
+        PasswordHashingService service = new PasswordHashingService(1, 4, 5, 0, 4, 4);
+
+        assertEquals(new PasswordHashingService.Verification(false, null), service.verify("nope", "secret"));
+        PasswordHashingService.Verification plain = service.verify("secret", "secret");
+        assertTrue(plain.matched());
+        assertTrue(new BCryptPasswordEncoder().matches("secret", plain.upgradedHash()));
+
+        PasswordHashingService.Verification weaker = service.verify("secret", new BCryptPasswordEncoder(4).encode("secret"));
+        assertTrue(weaker.matched());
+        assertTrue(weaker.upgradedHash().startsWith("$2a$05$"));
+
+        PasswordHashingService.Verification current = service.verify("secret", service.hash("secret"));
+        assertEquals(new PasswordHashingService.Verification(true, null), current);
+        service.destroy();
+    }
+
+    @Test
+    void full_queue_is_rejected_immediately() throws Exception {
+        PasswordHashingService service = new PasswordHashingService(1, 1, 13, 0, 4, 4);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> service.hash("a"));
+        while (service.activeHashes() < 1) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> service.hash("b"));
+        while (service.queueDepth() < 1) {
+            Thread.sleep(1);
+        }
+
+        long start = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, () -> service.hash("c"));
+        assertTrue(System.nanoTime() - start < 50_000_000L, "rejection must not wait for the pool");
+        assertEquals(1, service.rejections());
+
+        running.get();
+        queued.get();
+        service.destroy();
+    }
+
+    @Test
+    void a_batch_larger_than_the_queue_waits_for_its_own_hashes() {
+        PasswordHashingService service = new PasswordHashingService(1, 2, 4, 0, 4, 4);
+        List<String> raw = IntStream.range(0, 20).mapToObj(i -> "pw" + i).toList();
+
+        List<String> hashes = service.hashAll(raw);
+
+        for (int i = 0; i < raw.size(); i++) {
+            assertTrue(service.verify(raw.get(i), hashes.get(i)).matched(), "hash " + i);
+        }
+        assertEquals(0, service.rejections());
+        service.destroy();
+    }
+
+    @Test
+    void login_rehashes_a_plaintext_password_and_keeps_working() throws Exception {
+        users.save(AppUser.builder().username("legacy").password("legacy123").email("legacy@lab.local").role("USER").build());
+        String login = "{\"username\":\"legacy\",\"password\":\"legacy123\"}";
+
+        mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(login))
+                .andExpect(status().isOk());
+        String stored = users.findByUsername("legacy").orElseThrow().getPassword();
+        assertTrue(stored.startsWith("$2a$" + String.format("%02d", passwords.cost()) + "$"));
+
+        mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(login))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"legacy\",\"password\":\"wrong\"}"))
+                .andExpect(status().isUnauthorized());
+        assertEquals(stored, users.findByUsername("legacy").orElseThrow().getPassword());
+    }
+}
@@ -0,0 +1,179 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.dto.AuthenticatedUser;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.JwtService;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import edu.nu.owaspapivulnlab.service.PrincipalResolver;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PrincipalResolutionTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired AppUserRepository users;
+    @Autowired AccountRepository accounts;
+    @Autowired PasswordHashingService passwords;
+    @Autowired JwtService jwt;
+    @Autowired Statistics statistics;
+
+    @Test
+    void warm_account_listing_runs_no_query() throws Exception {
+        AppUser user = seed("uid-claim");
+        String token = login("uid-claim");
+        mine(token);
+
+        long statements = statistics.getPrepareStatementCount();
+        mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].ownerUserId").value(user.getId()));
+        assertEquals(0, statistics.getPrepareStatementCount() - statements);
+
+        // /me reads the row itself, found by the id in the token
+        statements = statistics.getPrepareStatementCount();
+        mvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("uid-claim"));
+        assertEquals(1, statistics.getPrepareStatementCount() - statements);
+    }
+
+    @Test
+    void tokens_without_the_claim_are_resolved_once() throws Exception {
+        AppUser user = seed("no-claim");
+        String token = jwt.issue("no-claim", Map.of("role", "USER"));
+
+        long statements = statistics.getPrepareStatementCount();
+        mine(token);
+        long first = statistics.getPrepareStatementCount() - statements;
+
+        statements = statistics.getPrepareStatementCount();
+        mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].ownerUserId").value(user.getId()));
+        assertEquals(0, statistics.getPrepareStatementCount() - statements);
+        assertTrue(first >= 1, "the first request looks the name up");
+    }
+
+    @Test
+    void deleted_users_stop_resolving_while_their_tokens_are_still_valid() throws Exception {
+        AppUser user = seed("to-delete");
+        String withClaim = login("to-delete");
+        String withoutClaim = jwt.issue("to-delete", Map.of("role", "USER"));
+        mine(withClaim);
+        mine(withoutClaim);
+
+        mvc.perform(delete("/api/users/" + user.getId())).andExpect(status().isOk());
+
+        for (String token : new String[]{withClaim, withoutClaim}) {
+            mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isEmpty());
+            mvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Test
+    void renamed_users_no_longer_resolve_under_their_old_name() throws Exception {
+        AppUser user = seed("before-rename");
+        String oldName = jwt.issue("before-rename", Map.of("role", "USER"));
+        mine(oldName);
+
+        // A batch item naming an existing id creates a new user instead of saving over this one
+        mvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":" + user.getId() + ",\"version\":0,\"username\":\"batch-rename\","
+                                + "\"password\":\"pw\",\"email\":\"batch-rename@lab.local\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].status").value("created"));
+        assertEquals("before-rename", users.findById(user.getId()).orElseThrow().getUsername());
+        assertNotEquals(user.getId(), users.findByUsername("batch-rename").orElseThrow().getId());
+
+        // The single create does save over it
+        mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":" + user.getId() + ",\"version\":" + user.getVersion()
+                                + ",\"username\":\"after-rename\",\"password\":\"pw123456\","
+                                + "\"email\":\"after-rename@lab.local\",\"role\":\"USER\"}"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + oldName))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+        mvc.perform(get("/api/users/me").header("Authorization", "Bearer " + oldName))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deleted_users_stay_unresolved_when_the_cache_is_full() {
+        AppUser gone = seed("evicted-delete");
+        AppUser other = seed("evicted-other");
+        // Room for one id: resolving the other user evicts what is known about the deleted one
+        PrincipalResolver resolver = new PrincipalResolver(users, 1);
+        users.deleteById(gone.getId());
+        resolver.userDeleted(gone.getId());
+
+        assertEquals(Optional.of(other.getId()), resolver.userId(principal(other)));
+        assertTrue(resolver.userId(principal(gone)).isEmpty());
+        assertEquals(Optional.of(other.getId()), resolver.userId(principal(other)));
+        assertTrue(resolver.userId(principal(gone)).isEmpty());
+    }
+
+    private static Authentication principal(AppUser user) {
+        return new UsernamePasswordAuthenticationToken(new AuthenticatedUser(user.getId(), user.getUsername()), null, List.of());
+    }
+
+    @Test
+    void another_users_id_is_forbidden() throws Exception {
+        AppUser user = seed("owner-check");
+        mvc.perform(get("/api/users/" + (user.getId() + 1)).header("Authorization", "Bearer " + login("owner-check")))
+                .andExpect(status().isForbidden());
+    }
+
+    private AppUser seed(String username) {
+        return users.findByUsername(username).orElseGet(() -> {
+            AppUser user = users.save(AppUser.builder().username(username).password(passwords.hash("pw123456"))
+                    .email(username + "@lab.local").role("USER").build());
+            accounts.save(Account.builder().ownerUserId(user.getId()).iban("PK00-" + username).balance(50.0).build());
+            return user;
+        });
+    }
+
+    private String login(String username) throws Exception {
+        String body = mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"pw123456\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(body).get("token").asText();
+    }
+
+    private void mine(String token) throws Exception {
+        String etag = mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+    }
+}
@@ -0,0 +1,137 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Captures the SQL a request issues on the calling thread, then asks H2 for the plan of each select
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "edu.nu.owaspapivulnlab.QueryPlanTests$Capture")
+@AutoConfigureMockMvc
+class QueryPlanTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired AppUserRepository users;
+    @Autowired AccountRepository accounts;
+    @Autowired PasswordHashingService passwords;
+
+    @BeforeEach
+    void seed() {
+        if (users.findByUsername("planner").isEmpty()) {
+            AppUser user = users.save(AppUser.builder().username("planner").password(passwords.hash("planner123"))
+                    .email("planner@lab.local").role("USER").build());
+            accounts.save(Account.builder().ownerUserId(user.getId()).iban("PK00-PLAN").balance(10.0).build());
+        }
+    }
+
+    @Test
+    void login_is_one_indexed_lookup() throws Exception {
+        List<String> sql = capture(() -> login());
+        assertEquals(1, sql.size(), sql.toString());
+        assertIndexed(sql);
+    }
+
+    @Test
+    void account_listing_uses_indexes_and_a_bounded_number_of_statements() throws Exception {
+        String token = login();
+        List<String> sql = capture(() -> mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk()));
+        // accounts by owner (the token carries the user id), then snapshot + opening balance + ledger tail
+        // for the one account
+        assertTrue(sql.size() <= 4, sql.toString());
+        assertIndexed(sql);
+    }
+
+    @Test
+    void user_reads_and_duplicate_checks_are_indexed() throws Exception {
+        String token = login();
+        List<String> sql = capture(() -> {
+            mvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+            // Batch creation is what looks users up by email now: one existence check per chunk
+            mvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON)
+                            .content("[{\"username\":\"plan-" + System.nanoTime() + "\",\"password\":\"pw\","
+                                    + "\"email\":\"plan-" + System.nanoTime() + "@lab.local\"}]"))
+                    .andExpect(status().isOk());
+        });
+        assertTrue(sql.stream().anyMatch(s -> s.contains("email in")), sql.toString());
+        assertIndexed(sql);
+    }
+
+    private String login() throws Exception {
+        String body = mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"planner\",\"password\":\"planner123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return body.replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+    }
+
+    private void assertIndexed(List<String> statements) {
+        for (String sql : statements) {
+            if (!sql.trim().toLowerCase().startsWith("select")) {
+                continue;
+            }
+            Object[] args = Collections.nCopies((int) sql.chars().filter(c -> c == '?').count(), "1").toArray();
+            String plan = jdbc.queryForObject("explain " + sql, String.class, args);
+            assertFalse(plan.contains("tableScan"), "full scan for: " + sql + "\n" + plan);
+        }
+    }
+
+    private static List<String> capture(Action action) throws Exception {
+        Capture.start();
+        try {
+            action.run();
+            return Capture.stop();
+        } finally {
+            Capture.stop();
+        }
+    }
+
+    @FunctionalInterface
+    interface Action {
+        void run() throws Exception;
+    }
+
+    // Records statements prepared on the current thread only, so background work does not interfere
+    public static class Capture implements StatementInspector {
+        private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+        static void start() {
+            STATEMENTS.set(new ArrayList<>());
+        }
+
+        static List<String> stop() {
+            List<String> captured = STATEMENTS.get();
+            STATEMENTS.remove();
+            return captured == null ? List.of() : captured;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> captured = STATEMENTS.get();
+            if (captured != null) {
+                captured.add(sql);
+            }
+            return sql;
+        }
+    }
+}
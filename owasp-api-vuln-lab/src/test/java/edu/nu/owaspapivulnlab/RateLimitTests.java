@@ -0,0 +1,83 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.config.BucketStore;
+import edu.nu.owaspapivulnlab.config.RateLimiter;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.ratelimit.default-limit.capacity=5",
+        // Indexed properties replace the whole configured list, so the route is restated in full
+        "app.ratelimit.routes[0].name=login",
+        "app.ratelimit.routes[0].pattern=/api/auth/login",
+        "app.ratelimit.routes[0].method=POST",
+        "app.ratelimit.routes[0].capacity=2"
+})
+@AutoConfigureMockMvc
+class RateLimitTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired RateLimiter limiter;
+
+    @Test
+    void each_request_is_charged_once_and_login_has_its_own_stricter_limit() throws Exception {
+        long before = limiter.rejections();
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/api/auth/login").contentType("application/json").content("{}"))
+                    .andExpect(status().is(not429()));
+        }
+        mvc.perform(post("/api/auth/login").contentType("application/json").content("{}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        // Exhausting the login route leaves the default budget for other routes untouched
+        for (int i = 0; i < 5; i++) {
+            mvc.perform(get("/api/admin/metrics")).andExpect(status().isOk());
+        }
+        mvc.perform(get("/api/admin/metrics")).andExpect(status().isTooManyRequests());
+        assertEquals(before + 2, limiter.rejections());
+    }
+
+    @Test
+    void store_is_capped_and_evicts_idle_buckets() {
+        AtomicLong clock = new AtomicLong();
+        BucketStore store = new BucketStore(4, 1, Duration.ofSeconds(10), clock::get);
+        for (int i = 0; i < 10; i++) {
+            store.get("ip-" + i, RateLimitTests::bucket);
+        }
+        assertEquals(4, store.size());
+        assertEquals(6, store.evictions());
+
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        store.get("fresh", RateLimitTests::bucket);
+        store.get("fresh", RateLimitTests::bucket);
+        assertTrue(store.size() < 4);
+    }
+
+    @Test
+    void store_returns_same_bucket_for_active_key() {
+        BucketStore store = new BucketStore(100, 4, Duration.ofMinutes(1));
+        Bucket first = store.get("k", RateLimitTests::bucket);
+        assertSame(first, store.get("k", RateLimitTests::bucket));
+    }
+
+    private static Bucket bucket() {
+        return Bucket.builder().addLimit(Bandwidth.simple(1, Duration.ofMinutes(1))).build();
+    }
+
+    private static org.hamcrest.Matcher<Integer> not429() {
+        return org.hamcrest.Matchers.not(429);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.model.RevokedToken;
+import edu.nu.owaspapivulnlab.repo.RevokedTokenRepository;
+import edu.nu.owaspapivulnlab.service.TokenRevocationService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Denylist check for tokens that were never revoked, with the configured filter holding a full
+// expected-entries worth of revoked ids: the filter's observed false-positive rate, the mean cost of
+// isRevoked, and the cost of the table lookup every check would pay without the filter.
+// Run with: mvn -Pperf test -Dtest=RevocationPerfTests [-Drevoked=100000 -Dchecks=1000000]
+@Tag("perf")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:revocation-perf;DB_CLOSE_DELAY=-1")
+class RevocationPerfTests {
+
+    private static final int REVOKED = Integer.getInteger("revoked", 100_000);
+    private static final int CHECKS = Integer.getInteger("checks", 1_000_000);
+
+    @Autowired TokenRevocationService revocations;
+    @Autowired RevokedTokenRepository revoked;
+
+    @Test
+    void most_checks_never_reach_the_table() {
+        Instant exp = Instant.now().plusSeconds(3600);
+        revoked.saveAll(IntStream.range(0, REVOKED)
+                .mapToObj(i -> RevokedToken.builder().jti(UUID.randomUUID().toString()).expiresAt(exp).build())
+                .toList());
+        revocations.rebuild();
+
+        List<String> valid = IntStream.range(0, CHECKS).mapToObj(i -> UUID.randomUUID().toString()).toList();
+        valid.forEach(revocations::isRevoked); // warm-up
+        long lookups = revocations.lookups();
+        long falsePositives = revocations.falsePositives();
+        long start = System.nanoTime();
+        for (String jti : valid) {
+            assertFalse(revocations.isRevoked(jti));
+        }
+        double filtered = (System.nanoTime() - start) / (double) CHECKS;
+        double rate = (revocations.falsePositives() - falsePositives) / (double) (revocations.lookups() - lookups);
+
+        int tableChecks = CHECKS / 100;
+        start = System.nanoTime();
+        for (String jti : valid.subList(0, tableChecks)) {
+            revoked.existsByJtiAndExpiresAtAfter(jti, Instant.now());
+        }
+        double table = (System.nanoTime() - start) / (double) tableChecks;
+
+        System.out.printf("%d revoked, %d checks: false-positive rate %.5f (fill %.3f), isRevoked %.0f ns, "
+                + "table lookup %.0f ns%n", REVOKED, CHECKS, rate, revocations.filterFillRatio(), filtered, table);
+        assertTrue(rate < 0.005, "false-positive rate " + rate);
+        assertTrue(filtered * 10 < table);
+    }
+}
@@ -0,0 +1,98 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.LedgerEntryRepository;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.TransferEngine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Transfer throughput with the accounts spread over 1, 2 and 4 shards: the same accounts (by owner) and the
+// same random transfer sequence per client thread each time. Every shard adds a database and a set of
+// transfer partitions; whether that buys throughput depends on there being cores to run them on.
+// Run with: mvn -Pperf test -Dtest=ShardedTransferPerfTests [-Dsharding.accounts=4000 -Dsharding.transfers=40000]
+@Tag("perf")
+class ShardedTransferPerfTests {
+
+    private static final int ACCOUNTS = Integer.getInteger("sharding.accounts", 4_000);
+    private static final int TRANSFERS = Integer.getInteger("sharding.transfers", 40_000);
+    private static final int CLIENTS = 32;
+
+    @Test
+    void transfer_throughput_by_shard_count() throws Exception {
+        List<String> report = new ArrayList<>();
+        for (int count : new int[]{1, 2, 4}) {
+            try (ConfigurableApplicationContext app = start(count)) {
+                AccountShards shards = app.getBean(AccountShards.class);
+                long[] ids = seed(shards, app.getBean(AccountRepository.class));
+                TransferEngine engine = app.getBean(TransferEngine.class);
+                run(engine, ids, TRANSFERS / 10);
+
+                long start = System.nanoTime();
+                run(engine, ids, TRANSFERS);
+                long elapsed = System.nanoTime() - start;
+
+                LedgerEntryRepository entries = app.getBean(LedgerEntryRepository.class);
+                List<Long> perShard = shards.fanOut(shard -> entries.count());
+                assertEquals(TRANSFERS + TRANSFERS / 10, perShard.stream().mapToLong(Long::longValue).sum());
+                report.add(String.format("%d shard(s): %d transfers in %d ms (%.0f transfers/s), ledger entries per shard %s",
+                        count, TRANSFERS, elapsed / 1_000_000, TRANSFERS * 1e9 / elapsed, perShard));
+            }
+        }
+        report.add(Runtime.getRuntime().availableProcessors() + " CPU(s)");
+        report.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(int count) {
+        String name = "sharded-perf-" + count;
+        return new SpringApplicationBuilder(OwaspApiVulnLabApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "--app.shards.count=" + count,
+                        "--app.shards.url-template=jdbc:h2:mem:" + name + "-{index};DB_CLOSE_DELAY=-1",
+                        "--app.audit.enabled=false");
+    }
+
+    // One account per owner, saved on the owner's shard; owner ids are the same for every shard count
+    private static long[] seed(AccountShards shards, AccountRepository accounts) {
+        long[] ids = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            long owner = 100_000 + i;
+            ids[i] = shards.onOwner(owner, () -> accounts.save(Account.builder()
+                    .ownerUserId(owner).iban("PK00-PERF" + owner).balance(1_000_000.0).build())).getId();
+        }
+        return ids;
+    }
+
+    private static void run(TransferEngine engine, long[] ids, int transfers) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                SplittableRandom random = new SplittableRandom(c);
+                done.add(clients.submit(() -> {
+                    for (int i = 0; i < transfers / CLIENTS; i++) {
+                        engine.transfer(ids[random.nextInt(ids.length)], 1.0);
+                    }
+                }));
+            }
+            for (Future<?> f : done) {
+                f.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+}
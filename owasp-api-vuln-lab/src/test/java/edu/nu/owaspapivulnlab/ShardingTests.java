@@ -0,0 +1,157 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.LedgerEntryRepository;
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.ConsistentHashRing;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import edu.nu.owaspapivulnlab.service.TransferEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:apilab-sharding;DB_CLOSE_DELAY=-1",
+        "app.shards.count=3",
+        "app.shards.url-template=jdbc:h2:mem:apilab-sharding-{index};DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+class ShardingTests {
+
+    @Autowired AccountShards shards;
+    @Autowired AccountRepository accounts;
+    @Autowired LedgerEntryRepository entries;
+    @Autowired AccountCache cache;
+    @Autowired TransferEngine engine;
+    @Autowired MetricsRegistry metrics;
+    @Autowired PlatformTransactionManager transactions;
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper mapper;
+
+    @Test
+    void adding_a_shard_moves_only_the_keys_the_new_shard_takes_over() {
+        int[] counts = new int[4];
+        ConsistentHashRing three = new ConsistentHashRing(3, 128);
+        ConsistentHashRing four = new ConsistentHashRing(4, 128);
+        int keys = 100_000;
+        int moved = 0;
+        for (long key = 1; key <= keys; key++) {
+            int before = three.shardOf(key);
+            int after = four.shardOf(key);
+            if (before != after) {
+                moved++;
+                assertEquals(3, after, "a key moved between two old shards");
+            }
+            counts[after]++;
+        }
+        double share = (double) moved / keys;
+        assertTrue(share > 0.18 && share < 0.32, "moved " + share);
+        for (int shard = 0; shard < 4; shard++) {
+            assertTrue(Math.abs(counts[shard] - keys / 4.0) < keys / 4.0 * 0.25, "shard " + shard + ": " + counts[shard]);
+        }
+    }
+
+    @Test
+    void accounts_are_stored_on_their_owners_shard_and_ids_name_it() {
+        for (long owner = 7000; owner < 7030; owner++) {
+            long o = owner;
+            int shard = shards.shardOfOwner(owner);
+            Long id = shards.onOwner(owner, () -> accounts.save(Account.builder()
+                    .ownerUserId(o).iban("PK00-OWN" + o).balance(10.0).build())).getId();
+
+            assertEquals(shard, shards.shardOfAccount(id));
+            List<Boolean> present = shards.fanOut(s -> accounts.existsById(id));
+            for (int s = 0; s < shards.count(); s++) {
+                assertEquals(s == shard, present.get(s), "account " + id + " on shard " + s);
+            }
+            assertEquals(1, cache.ownedBy(owner).size());
+        }
+    }
+
+    @Test
+    void a_balance_miss_reads_only_the_accounts_shard() {
+        long owner = ownerOn(2);
+        Long id = shards.onOwner(owner, () -> accounts.save(Account.builder()
+                .ownerUserId(owner).iban("PK00-READ").balance(25.0).build())).getId();
+        long shardOne = acquisitions("apilab-shard-1");
+        long shardTwo = acquisitions("apilab-shard-2");
+
+        assertEquals(25.0, cache.balance(id).orElseThrow());
+
+        assertEquals(shardOne, acquisitions("apilab-shard-1"));
+        assertTrue(acquisitions("apilab-shard-2") > shardTwo);
+    }
+
+    @Test
+    void a_transfer_writes_the_ledger_of_the_accounts_shard_only() {
+        long owner = ownerOn(1);
+        Long id = shards.onOwner(owner, () -> accounts.save(Account.builder()
+                .ownerUserId(owner).iban("PK00-MOVE").balance(100.0).build())).getId();
+        List<Long> before = shards.fanOut(s -> entries.count());
+
+        assertEquals(95.0, engine.transfer(id, 5.0));
+
+        List<Long> after = shards.fanOut(s -> entries.count());
+        assertEquals(before.get(0), after.get(0));
+        assertEquals(before.get(1) + 1, after.get(1));
+        assertEquals(before.get(2), after.get(2));
+        assertEquals(95.0, cache.balance(id).orElseThrow());
+    }
+
+    @Test
+    void unknown_shard_ids_are_not_found() {
+        long beyond = AccountShards.firstAccountId(shards.count());
+        assertTrue(cache.balance(beyond).isEmpty());
+        RuntimeException e = assertThrows(RuntimeException.class, () -> engine.transfer(beyond, 1.0));
+        assertEquals("Account not found", e.getMessage());
+    }
+
+    @Test
+    void a_transaction_cannot_switch_shards() {
+        TransactionTemplate tx = new TransactionTemplate(transactions);
+        assertThrows(IllegalStateException.class, () -> tx.executeWithoutResult(status ->
+                shards.onShard(1, accounts::count)));
+    }
+
+    @Test
+    void admin_totals_add_up_the_shards() throws Exception {
+        JsonNode body = mapper.readTree(mvc.perform(get("/api/admin/shards"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        List<Long> counts = shards.fanOut(s -> accounts.count());
+        assertEquals(3, body.get("shards").size());
+        long total = 0;
+        for (int s = 0; s < 3; s++) {
+            assertEquals(counts.get(s), body.get("shards").get(s).get("accounts").asLong());
+            total += counts.get(s);
+        }
+        assertEquals(total, body.get("accounts").asLong());
+    }
+
+    private long ownerOn(int shard) {
+        long owner = 9000;
+        while (shards.shardOfOwner(owner) != shard) {
+            owner++;
+        }
+        return owner;
+    }
+
+    private long acquisitions(String pool) {
+        return metrics.histogram("hikari_connection_acquire_seconds", "", "pool", pool).snapshot().count();
+    }
+}
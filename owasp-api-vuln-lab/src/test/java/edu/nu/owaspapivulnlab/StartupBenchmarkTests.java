@@ -0,0 +1,108 @@
+package edu.nu.owaspapivulnlab;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Time from launching the JVM to the first successful POST /api/auth/login, for the default
+// configuration and the faststart profile with and without the CDS archive. Each mode is started in
+// a fresh process from the jar in target/cds. Run with
+//   mvn -Pcds package -DskipTests && mvn -Pperf test -Dtest=StartupBenchmarkTests [-Dstartup.runs=5]
+@Tag("perf")
+class StartupBenchmarkTests {
+
+    private static final Path CDS = Path.of("target/cds");
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void faststart_serves_the_first_login_sooner() throws Exception {
+        Path jar;
+        try (Stream<Path> files = Files.list(CDS)) {
+            jar = files.filter(p -> p.toString().endsWith(".jar")).findFirst().orElse(null);
+        } catch (IOException e) {
+            jar = null;
+        }
+        assumeTrue(jar != null && Files.exists(CDS.resolve("app.jsa")), "run mvn -Pcds package first");
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("default", List.of());
+        modes.put("faststart", List.of("--spring.profiles.active=faststart"));
+        modes.put("faststart+cds", List.of("-XX:SharedArchiveFile=" + CDS.resolve("app.jsa"), "-Xlog:cds=error",
+                "--spring.profiles.active=faststart"));
+
+        Map<String, Long> medians = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            long[] millis = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                millis[run] = timeToFirstLogin(jar, mode.getValue());
+            }
+            Arrays.sort(millis);
+            medians.put(mode.getKey(), millis[RUNS / 2]);
+            System.out.printf("%-14s first login after %s ms (median %d ms)%n", mode.getKey(),
+                    Arrays.toString(millis), millis[RUNS / 2]);
+        }
+        assertTrue(medians.get("faststart+cds") < medians.get("default"), medians.toString());
+    }
+
+    private long timeToFirstLogin(Path jar, List<String> options) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        options.stream().filter(o -> o.startsWith("-X")).forEach(command::add);
+        command.add("-jar");
+        command.add(jar.toString());
+        options.stream().filter(o -> o.startsWith("--")).forEach(command::add);
+        command.add("--server.port=" + port);
+
+        HttpRequest login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"alice\",\"password\":\"alice123\"}"))
+                .build();
+        long start = System.nanoTime();
+        Process app = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(new File("target/startup-" + port + ".log")).start();
+        try {
+            long deadline = start + Duration.ofMinutes(2).toNanos();
+            while (System.nanoTime() < deadline) {
+                assertTrue(app.isAlive(), "app exited, see target/startup-" + port + ".log");
+                try {
+                    if (http.send(login, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(20);
+            }
+            return fail("no successful login within two minutes");
+        } finally {
+            app.destroy();
+            app.waitFor();
+        }
+    }
+}
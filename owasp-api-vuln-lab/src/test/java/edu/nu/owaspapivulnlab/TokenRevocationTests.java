@@ -0,0 +1,111 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.model.RevokedToken;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import edu.nu.owaspapivulnlab.repo.RevokedTokenRepository;
+import edu.nu.owaspapivulnlab.service.BloomFilter;
+import edu.nu.owaspapivulnlab.service.JwtService;
+import edu.nu.owaspapivulnlab.service.PasswordHashingService;
+import edu.nu.owaspapivulnlab.service.TokenRevocationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenRevocationTests {
+
+    private static final String USER = "sessions@lab.local";
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired JwtService jwt;
+    @Autowired TokenRevocationService revocations;
+    @Autowired RevokedTokenRepository revoked;
+    @Autowired AppUserRepository users;
+    @Autowired AccountRepository accounts;
+    @Autowired PasswordHashingService passwords;
+
+    @BeforeEach
+    void seed() {
+        if (users.findByUsername(USER).isEmpty()) {
+            AppUser user = users.save(AppUser.builder().username(USER).password(passwords.hash("sessions123"))
+                    .email(USER).role("USER").build());
+            accounts.save(Account.builder().ownerUserId(user.getId()).iban("PK00-SESSIONS").balance(10.0).build());
+        }
+    }
+
+    @Test
+    void bloom_filter_has_no_false_negatives_and_about_the_configured_false_positive_rate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.add("present-" + i));
+        assertTrue(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("present-" + i)));
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("absent-" + i)).count();
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void logged_out_token_no_longer_authenticates_while_other_sessions_do() throws Exception {
+        String token = login();
+        String other = login();
+        mine(token).andExpect(jsonPath("$", hasSize(1)));
+        assertNotNull(jwt.verify(token).getId());
+
+        mvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("revoked"));
+        mine(token).andExpect(jsonPath("$", hasSize(0)));
+        mine(other).andExpect(jsonPath("$", hasSize(1)));
+        mvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+
+        mvc.perform(post("/api/auth/revoke").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + other + "\"}"))
+                .andExpect(status().isOk());
+        mine(other).andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void rebuild_purges_expired_entries_and_keeps_live_ones() {
+        String live = UUID.randomUUID().toString();
+        String expired = UUID.randomUUID().toString();
+        revocations.revoke(live, Instant.now().plusSeconds(3600));
+        revoked.save(RevokedToken.builder().jti(expired).expiresAt(Instant.now().minusSeconds(1)).build());
+
+        revocations.rebuild();
+        assertTrue(revocations.isRevoked(live));
+        assertFalse(revocations.isRevoked(expired));
+        assertFalse(revoked.existsById(expired));
+    }
+
+    private String login() throws Exception {
+        String body = mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + USER + "\",\"password\":\"sessions123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(body).get("token").asText();
+    }
+
+    private ResultActions mine(String token) throws Exception {
+        return mvc.perform(get("/api/accounts/mine").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,213 @@
+package edu.nu.owaspapivulnlab;
+
+import edu.nu.owaspapivulnlab.exception.ServiceOverloadedException;
+import edu.nu.owaspapivulnlab.exception.TransferPendingException;
+import edu.nu.owaspapivulnlab.model.Account;
+import edu.nu.owaspapivulnlab.repo.AccountRepository;
+import edu.nu.owaspapivulnlab.repo.BalanceSnapshotRepository;
+import edu.nu.owaspapivulnlab.repo.LedgerEntryRepository;
+import edu.nu.owaspapivulnlab.service.AccountCache;
+import edu.nu.owaspapivulnlab.service.AccountShards;
+import edu.nu.owaspapivulnlab.service.AuditLog;
+import edu.nu.owaspapivulnlab.service.LedgerService;
+import edu.nu.owaspapivulnlab.service.TransferEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransferEngineTests {
+
+    static final int THREADS = 32;
+    static final int TRANSFERS_PER_THREAD = 500;
+    static final double START = 1_000_000;
+
+    @Autowired TransferEngine engine;
+    @Autowired AccountRepository accounts;
+    @Autowired LedgerService ledger;
+    @Autowired AccountCache cache;
+    @Autowired AccountShards shards;
+    @Autowired AuditLog audit;
+    @Autowired PlatformTransactionManager transactions;
+    @Autowired LedgerEntryRepository entries;
+    @Autowired BalanceSnapshotRepository snapshots;
+
+    @Test
+    void concurrent_transfers_on_a_hot_account_lose_no_updates() throws Exception {
+        Long id = accounts.save(Account.builder().ownerUserId(999L).iban("PK00-HOT").balance(START).build()).getId();
+        Set<Double> remainders = ConcurrentHashMap.newKeySet();
+
+        run(() -> {
+            for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                remainders.add(engine.transfer(id, 1.0));
+            }
+        });
+
+        int total = THREADS * TRANSFERS_PER_THREAD;
+        assertEquals(START - total, ledger.balance(id).orElseThrow());
+        // Every caller observed a distinct post-debit balance, i.e. no two debits were merged or dropped
+        assertEquals(total, remainders.size());
+    }
+
+    @Test
+    void transfers_spread_over_accounts_commit_independently() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            ids.add(accounts.save(Account.builder().ownerUserId(1000L + i).iban("PK00-S" + i).balance(START).build()).getId());
+        }
+
+        run(() -> {
+            for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                engine.transfer(ids.get(i % ids.size()), 2.0);
+            }
+        });
+
+        for (int a = 0; a < ids.size(); a++) {
+            int hitsPerThread = (TRANSFERS_PER_THREAD - a + ids.size() - 1) / ids.size();
+            assertEquals(START - 2.0 * THREADS * hitsPerThread, ledger.balance(ids.get(a)).orElseThrow());
+        }
+    }
+
+    @Test
+    void unknown_account_fails_without_affecting_its_batch() {
+        Long id = accounts.save(Account.builder().ownerUserId(998L).iban("PK00-MIX").balance(START).build()).getId();
+        // Same shard and, with 8 partitions, the same partition as the real account, so both land in one batch
+        Long unknown = id + 8_000_000;
+        List<CompletableFuture<Double>> known = new ArrayList<>();
+        List<CompletableFuture<Double>> missing = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            known.add(engine.submit(id, 1.0));
+            if (i % 10 == 0) {
+                missing.add(engine.submit(unknown, 1.0));
+            }
+        }
+
+        for (CompletableFuture<Double> result : missing) {
+            CompletionException e = assertThrows(CompletionException.class, result::join);
+            assertEquals("Account not found", e.getCause().getMessage());
+        }
+        for (int i = 0; i < known.size(); i++) {
+            assertEquals(START - i - 1, known.get(i).join());
+        }
+        assertEquals(START - known.size(), ledger.balance(id).orElseThrow());
+    }
+
+    @Test
+    void ids_on_no_shard_fail_before_queueing() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> engine.transfer(-1L, 1.0));
+        assertEquals("Account not found", e.getMessage());
+    }
+
+    @Test
+    void stopping_the_engine_completes_every_queued_transfer() throws Exception {
+        Long id = accounts.save(Account.builder().ownerUserId(997L).iban("PK00-STOP").balance(START).build()).getId();
+        TransferEngine stopping = new TransferEngine(ledger, cache, shards, audit, transactions, 1, 1, 100, 1_000);
+        List<CompletableFuture<Double>> results = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            results.add(stopping.submit(id, 1.0));
+        }
+
+        stopping.destroy();
+
+        int failed = 0;
+        for (CompletableFuture<Double> result : results) {
+            assertTrue(result.isDone());
+            failed += result.isCompletedExceptionally() ? 1 : 0;
+        }
+        assertEquals(START - (results.size() - failed), ledger.balance(id).orElseThrow());
+        RuntimeException e = assertThrows(RuntimeException.class, () -> stopping.transfer(id, 1.0));
+        assertEquals("Transfer engine is shutting down", e.getMessage());
+    }
+
+    @Test
+    void a_timed_out_transfer_is_withdrawn_unless_it_is_already_committing() throws Exception {
+        Long busy = accounts.save(Account.builder().ownerUserId(996L).iban("PK00-BUSY").balance(START).build()).getId();
+        Long queued = accounts.save(Account.builder().ownerUserId(995L).iban("PK00-QUEUED").balance(START).build()).getId();
+        GatedLedger gated = new GatedLedger(busy);
+        // One partition committing one transfer at a time, so the second waits behind the gated one
+        TransferEngine slow = new TransferEngine(gated, cache, shards, audit, transactions, 1, 1, 100, 300);
+        try {
+            CompletableFuture<Void> committing = CompletableFuture.runAsync(() -> {
+                TransferPendingException e = assertThrows(TransferPendingException.class, () -> slow.transfer(busy, 1.0));
+                assertEquals(HttpStatus.GATEWAY_TIMEOUT, e.getStatus());
+            });
+            assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+
+            ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class, () -> slow.transfer(queued, 1.0));
+            assertEquals("Transfer not applied, the transfer engine is saturated", e.getMessage());
+            committing.get(10, TimeUnit.SECONDS);
+            gated.release.countDown();
+            // The one the partition had picked up goes through after all; the withdrawn one never runs
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (ledger.balance(busy).orElseThrow() != START - 1) {
+                assertTrue(System.currentTimeMillis() < deadline, "the picked-up transfer never committed");
+                Thread.sleep(10);
+            }
+            assertEquals(START, ledger.balance(queued).orElseThrow());
+        } finally {
+            gated.release.countDown();
+            slow.destroy();
+        }
+    }
+
+    // Holds the partition inside its commit while it reads the gated account
+    class GatedLedger extends LedgerService {
+        final Long gatedId;
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        GatedLedger(Long gatedId) {
+            super(entries, snapshots, accounts, shards, transactions);
+            this.gatedId = gatedId;
+        }
+
+        @Override
+        public Optional<Position> position(Long accountId) {
+            if (accountId.equals(gatedId)) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return super.position(accountId);
+        }
+    }
+
+    // Throughput is measured by ShardedTransferPerfTests (-Pperf); these only check correctness
+    private static void run(Runnable client) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                client.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn -Pperf test (caps the test JVM at -Xmx256m). The table lives in a file database so
+// the rows themselves are not on the heap; a response that materialized them would not fit.
+@Tag("perf")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/perf/export;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class UserExportPerfTests {
+
+    private static final int ROWS = 1_000_000;
+
+    @LocalServerPort int port;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void streams_a_million_users_in_constant_memory() throws Exception {
+        long existing = jdbc.queryForObject("select count(*) from app_user", Long.class);
+        jdbc.update("insert into app_user (id, username, password, role, is_admin, email, version) "
+                + "select next value for app_user_seq, 'bulk' || x, 'pw', 'USER', false, 'bulk' || x || '@lab.local', 0 "
+                + "from system_range(1, ?)", ROWS);
+
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users/export")).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+
+        long users = 0;
+        long start = System.nanoTime();
+        try (JsonParser json = om.getFactory().createParser(response.body())) {
+            assertEquals(JsonToken.START_ARRAY, json.nextToken());
+            while (json.nextToken() == JsonToken.START_OBJECT) {
+                json.skipChildren();
+                users++;
+            }
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("Exported %d users in %d ms, max heap %d MB%n",
+                users, ms, Runtime.getRuntime().maxMemory() >> 20);
+        assertEquals(existing + ROWS, users);
+    }
+}
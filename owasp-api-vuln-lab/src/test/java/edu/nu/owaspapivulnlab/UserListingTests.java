@@ -0,0 +1,62 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserListingTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired AppUserRepository users;
+
+    @Test
+    void list_pages_by_id_following_the_cursor_header() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            users.save(AppUser.builder().username("page" + i).password("pw").email("page" + i + "@lab.local").role("USER").build());
+        }
+        List<Long> seen = new ArrayList<>();
+        String cursor = "0";
+        while (cursor != null) {
+            MvcResult page = mvc.perform(get("/api/users").param("afterId", cursor).param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode body = om.readTree(page.getResponse().getContentAsString());
+            assertTrue(body.size() <= 2);
+            body.forEach(u -> seen.add(u.get("id").asLong()));
+            body.forEach(u -> assertFalse(u.has("password"), "pages are projections without the password"));
+            cursor = page.getResponse().getHeader("X-Next-After-Id");
+        }
+        assertEquals(users.count(), seen.size());
+        assertEquals(seen.stream().sorted().distinct().toList(), seen, "ids are strictly increasing across pages");
+    }
+
+    @Test
+    void export_streams_every_user_as_one_array() throws Exception {
+        MvcResult started = mvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String json = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode body = om.readTree(json);
+        assertTrue(body.isArray());
+        assertEquals(users.count(), body.size());
+    }
+}
@@ -0,0 +1,86 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import edu.nu.owaspapivulnlab.repo.AppUserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bytes per response and heap allocated per request for GET /api/users (a page of 100) and a search
+// page of 20, loading managed AppUser entities as the endpoints used to versus AppUserDTO projections.
+// Both variants run in a transaction and are serialized with the application's ObjectMapper.
+// Run with: mvn -Pperf test -Dtest=UserReadPerfTests
+@Tag("perf")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-read-perf;DB_CLOSE_DELAY=-1",
+        "app.password.bcrypt-cost=4",
+        "app.seed.bulk.enabled=true",
+        "app.seed.bulk.users=20000"
+})
+class UserReadPerfTests {
+
+    private static final int ROUNDS = 2_000;
+
+    @Autowired AppUserRepository users;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate tx;
+    @Autowired ObjectMapper mapper;
+
+    @Test
+    void projections_send_and_allocate_less_than_entities() throws Exception {
+        long[] afterIds = new SplittableRandom(1).longs(ROUNDS, 0, 19_000).toArray();
+        List<List<Long>> searches = new SplittableRandom(2).ints(ROUNDS, 0, 19_000)
+                .mapToObj(start -> LongStream.range(start, start + 20).boxed().toList()).toList();
+        int[] round = {0};
+
+        Cost listEntities = measure(() -> mapper.writeValueAsBytes(tx.execute(s -> em.createQuery(
+                        "select u from AppUser u where u.id > ?1 order by u.id", AppUser.class)
+                .setParameter(1, afterIds[round[0]++ % ROUNDS]).setMaxResults(100).getResultList())));
+        Cost listViews = measure(() -> mapper.writeValueAsBytes(tx.execute(s ->
+                users.findViewsAfter(afterIds[round[0]++ % ROUNDS], Limit.of(100)))));
+        Cost searchEntities = measure(() -> mapper.writeValueAsBytes(tx.execute(s ->
+                users.findAllById(searches.get(round[0]++ % ROUNDS)))));
+        Cost searchViews = measure(() -> mapper.writeValueAsBytes(tx.execute(s ->
+                users.findViewsByIdIn(searches.get(round[0]++ % ROUNDS)))));
+
+        System.out.println("list   entities " + listEntities + "\nlist   dto      " + listViews);
+        System.out.println("search entities " + searchEntities + "\nsearch dto      " + searchViews);
+        assertTrue(listViews.bytes() < listEntities.bytes());
+        assertTrue(listViews.allocated() < listEntities.allocated());
+        assertTrue(searchViews.allocated() < searchEntities.allocated());
+    }
+
+    // Mean response size and bytes allocated on this thread per call, after a warm-up pass
+    private static Cost measure(Callable<byte[]> request) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < ROUNDS; i++) {
+            request.call();
+        }
+        long bytes = 0;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            bytes += request.call().length;
+        }
+        return new Cost(bytes / ROUNDS, (threads.getCurrentThreadAllocatedBytes() - before) / ROUNDS);
+    }
+
+    private record Cost(long bytes, long allocated) {
+        @Override
+        public String toString() {
+            return String.format("%,8d B/response %,10d B allocated/request", bytes, allocated);
+        }
+    }
+}
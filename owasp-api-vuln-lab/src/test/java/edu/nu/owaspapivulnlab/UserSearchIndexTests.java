@@ -0,0 +1,80 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.service.UserSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserSearchIndexTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired UserSearchIndex index;
+
+    @Test
+    void ranks_exact_then_prefix_then_substring_and_pages() {
+        UserSearchIndex local = new UserSearchIndex(null, 100);
+        local.add(1L, "xmarkus", "a@x.io");
+        local.add(2L, "mark", "b@x.io");
+        local.add(3L, "markus", "c@x.io");
+        local.add(4L, "zed", "mark@x.io");
+        local.add(5L, "other", "d@x.io");
+
+        assertEquals(List.of(2L, 3L, 4L, 1L), local.search("MARK", 0, 10));
+        assertEquals(List.of(4L, 1L), local.search("mark", 1, 2));
+        assertEquals(List.of(), local.search("mark", 2, 2));
+        assertEquals(List.of(), local.search("nomatch", 0, 10));
+        // Shorter than a trigram still works
+        assertEquals(List.of(5L), local.search("th", 0, 10));
+
+        local.remove(2L);
+        local.add(3L, "renamed", "c@x.io");
+        assertEquals(List.of(4L, 1L), local.search("mark", 0, 10));
+        assertEquals(4, local.size());
+    }
+
+    @Test
+    void index_is_loaded_at_startup_and_follows_create_and_delete() throws Exception {
+        assertTrue(index.isReady());
+        assertTrue(index.size() > 0);
+
+        String created = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"quokka\",\"password\":\"pw\",\"email\":\"quokka@lab.local\",\"role\":\"USER\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = om.readTree(created).get("id").asLong();
+
+        JsonNode found = om.readTree(mvc.perform(get("/api/users/search").param("q", "QUOKK"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(1, found.size());
+        assertEquals(id, found.get(0).get("id").asLong());
+
+        mvc.perform(delete("/api/users/" + id)).andExpect(status().isOk());
+        mvc.perform(get("/api/users/search").param("q", "quokka"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void pages_past_the_index_are_empty_whatever_their_number() throws Exception {
+        for (String page : new String[]{"2000000000", "20000000", "1000"}) {
+            mvc.perform(get("/api/users/search").param("q", "ali").param("page", page).param("size", "100"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json("[]"));
+        }
+    }
+}
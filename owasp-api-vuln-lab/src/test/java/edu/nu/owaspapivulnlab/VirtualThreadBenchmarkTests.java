@@ -0,0 +1,149 @@
+package edu.nu.owaspapivulnlab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the login -> balance -> transfer flow against the app twice: on Tomcat's platform pool and
+// with virtual threads, with 10x as many concurrent clients as the pool has threads. Run with
+//   mvn -Pperf,jdk21 test -Dtest=VirtualThreadBenchmarkTests [-Dbench.pool=20 -Dbench.seconds=20]
+// On Java 17 virtual threads are unavailable and both runs use the platform pool. So far it has only
+// been run on 17: there are no measured numbers for virtual threads yet.
+@Tag("perf")
+class VirtualThreadBenchmarkTests {
+
+    private static final int POOL = Integer.getInteger("bench.pool", 20);
+    private static final int CLIENTS = 10 * POOL;
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 15);
+    private static final int WARMUP_SECONDS = 3;
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @Test
+    void compare_platform_and_virtual_threads() throws Exception {
+        boolean virtualAvailable = Runtime.version().feature() >= 21;
+        if (!virtualAvailable) {
+            System.out.println("Java " + Runtime.version().feature() + ": virtual threads unavailable, both runs use platform threads");
+        }
+        Result platform = run("platform", false);
+        Result virtual = run("virtual", virtualAvailable);
+
+        System.out.printf("%n%d clients, Tomcat pool %d, %d s per mode%n", CLIENTS, POOL, SECONDS);
+        System.out.printf("%-9s %10s %8s %12s %12s %12s%n", "mode", "flows/s", "errors", "login p99", "balance p99", "transfer p99");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-9s %10.1f %8d %10.1fms %10.1fms %10.1fms%n", result.mode, result.flowsPerSecond(),
+                    result.errors.sum(), result.p99Millis(0), result.p99Millis(1), result.p99Millis(2));
+        }
+        for (Result result : List.of(platform, virtual)) {
+            assertTrue(result.completed.sum() > 0, result.mode + " completed no flows");
+            assertTrue(result.errors.sum() <= result.completed.sum() / 20, result.mode + " error rate above 5%: " + result.errors);
+        }
+    }
+
+    private Result run(String mode, boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(OwaspApiVulnLabApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + mode + ";DB_CLOSE_DELAY=-1",
+                "--server.tomcat.threads.max=" + POOL,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                // Measure the thread model, not the limits in front of it
+                "--app.ratelimit.enabled=false",
+                "--app.password.bcrypt-cost=4",
+                "--app.password.queue-capacity=" + CLIENTS)) {
+            String base = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            Result result = new Result(mode);
+            long warmupEnds = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+            long ends = warmupEnds + TimeUnit.SECONDS.toNanos(SECONDS);
+            CountDownLatch done = new CountDownLatch(CLIENTS);
+            List<Thread> clients = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                String user = c % 2 == 0 ? "alice" : "bob";
+                long account = c % 2 == 0 ? 1 : 2;
+                Thread client = new Thread(() -> {
+                    try {
+                        while (System.nanoTime() < ends) {
+                            boolean measured = System.nanoTime() > warmupEnds;
+                            flow(http, base, user, account, measured ? result : null);
+                        }
+                    } catch (Exception e) {
+                        result.errors.increment();
+                    } finally {
+                        done.countDown();
+                    }
+                }, "bench-client-" + c);
+                client.setDaemon(true);
+                clients.add(client);
+            }
+            clients.forEach(Thread::start);
+            assertTrue(done.await(WARMUP_SECONDS + SECONDS + 60, TimeUnit.SECONDS), "clients did not finish");
+            return result;
+        }
+    }
+
+    private void flow(HttpClient http, String base, String user, long account, Result result) throws Exception {
+        HttpResponse<String> login = timed(http, HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + user + "\",\"password\":\"" + user + "123\"}"))
+                .build(), result, 0);
+        if (login.statusCode() != 200) {
+            return;
+        }
+        String auth = "Bearer " + om.readTree(login.body()).get("token").asText();
+        timed(http, HttpRequest.newBuilder(URI.create(base + "/api/accounts/" + account + "/balance"))
+                .header("Authorization", auth).GET().build(), result, 1);
+        HttpResponse<String> transfer = timed(http, HttpRequest.newBuilder(URI.create(base + "/api/accounts/" + account + "/transfer?amount=0.01"))
+                .header("Authorization", auth).POST(HttpRequest.BodyPublishers.noBody()).build(), result, 2);
+        if (result != null && transfer.statusCode() == 200) {
+            result.completed.increment();
+        }
+    }
+
+    private static HttpResponse<String> timed(HttpClient http, HttpRequest request, Result result, int step) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (result != null) {
+            result.latency[step].recordSince(start);
+            if (response.statusCode() != 200) {
+                result.errors.increment();
+            }
+        }
+        return response;
+    }
+
+    private static final class Result {
+        final String mode;
+        final LatencyHistogram[] latency = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+        final LongAdder completed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        Result(String mode) {
+            this.mode = mode;
+        }
+
+        double flowsPerSecond() {
+            return (double) completed.sum() / SECONDS;
+        }
+
+        double p99Millis(int step) {
+            return latency[step].snapshot().valueAt(0.99) / 1e6;
+        }
+    }
+}
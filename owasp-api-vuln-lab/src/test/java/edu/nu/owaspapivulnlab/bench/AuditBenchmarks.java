@@ -0,0 +1,93 @@
+package edu.nu.owaspapivulnlab.bench;
+
+import edu.nu.owaspapivulnlab.service.AuditLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+// What auditing adds to a transfer request: publishing into the ring (the writer thread runs alongside,
+// and a full ring would make this wait for it), against doing the write on the request thread, as a
+// row inserted into H2 or as a record appended to a file and forced to disk.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditBenchmarks {
+
+    private Path dir;
+    private AuditLog audit;
+    private FileChannel file;
+    private final ByteBuffer record = ByteBuffer.allocate(96);
+    private Connection db;
+    private PreparedStatement insert;
+    private long account;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        dir = Files.createTempDirectory("audit-bench");
+        audit = new AuditLog(true, dir.resolve("ring").toString(), 65_536, 64, AuditLog.Durability.INTERVAL,
+                1000, AuditLog.WhenFull.BLOCK, 1024);
+        file = FileChannel.open(dir.resolve("sync.log"), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        db = DriverManager.getConnection("jdbc:h2:mem:audit-bench;DB_CLOSE_DELAY=-1", "sa", "");
+        db.createStatement().execute("create table audit_event (id bigint auto_increment primary key, "
+                + "at timestamp, type varchar(20), actor varchar(255), subject_id bigint, amount double)");
+        insert = db.prepareStatement("insert into audit_event (at, type, actor, subject_id, amount) values (?, ?, ?, ?, ?)");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        audit.destroy();
+        file.close();
+        db.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public void ringPublish() {
+        audit.transfer("alice", ++account, 12.5);
+    }
+
+    @Benchmark
+    public int syncInsert() throws SQLException {
+        insert.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+        insert.setString(2, "TRANSFER");
+        insert.setString(3, "alice");
+        insert.setLong(4, ++account);
+        insert.setDouble(5, 12.5);
+        return insert.executeUpdate();
+    }
+
+    @Benchmark
+    public void syncAppendAndForce() throws IOException {
+        record.clear();
+        record.putLong(++account).putLong(System.currentTimeMillis()).putDouble(12.5);
+        record.position(record.capacity()).flip();
+        file.write(record);
+        file.force(false);
+    }
+}
@@ -0,0 +1,84 @@
+package edu.nu.owaspapivulnlab.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.exception.InvalidRequestException;
+import edu.nu.owaspapivulnlab.exception.NotFoundException;
+import edu.nu.owaspapivulnlab.exception.ServiceOverloadedException;
+import edu.nu.owaspapivulnlab.service.MetricsRegistry;
+import edu.nu.owaspapivulnlab.web.GlobalErrorHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Building an error response: the exception itself (its stack trace is filled in on construction),
+// the handler's ResponseEntity, and the JSON body. The *Prebuilt variants reuse one exception, to
+// separate the cost of creating it from the cost of handling it. accountMissBefore is the miss path as
+// it was, a RuntimeException through the catch-all handler; accountMiss is the typed, stack-free one.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorHandlerBenchmarks {
+
+    private GlobalErrorHandler handler;
+    private ObjectMapper mapper;
+    private InvalidRequestException invalid;
+    private ServiceOverloadedException overloaded;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        handler = new GlobalErrorHandler(new MetricsRegistry(), mapper);
+        invalid = new InvalidRequestException("Expected a JSON array");
+        overloaded = new ServiceOverloadedException("Password hashing queue is full");
+    }
+
+    @Benchmark
+    public byte[] invalidRequest() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(handler.invalid(new InvalidRequestException("Expected a JSON array")).getBody());
+    }
+
+    @Benchmark
+    public byte[] invalidRequestPrebuilt() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(handler.invalid(invalid).getBody());
+    }
+
+    @Benchmark
+    public byte[] overloaded() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(handler.overloaded(
+                new ServiceOverloadedException("Password hashing queue is full")).getBody());
+    }
+
+    @Benchmark
+    public byte[] overloadedPrebuilt() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(handler.overloaded(overloaded).getBody());
+    }
+
+    @Benchmark
+    public byte[] unexpected() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(handler.all(new IllegalStateException("Account 42 not found")).getBody());
+    }
+
+    @Benchmark
+    public byte[] accountMissBefore() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(handler.all(new RuntimeException("Account not found")).getBody());
+    }
+
+    @Benchmark
+    public byte[] accountMiss() {
+        return handler.expected(new NotFoundException("Account not found")).getBody();
+    }
+}
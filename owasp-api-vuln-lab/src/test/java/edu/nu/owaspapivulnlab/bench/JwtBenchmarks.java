@@ -0,0 +1,56 @@
+package edu.nu.owaspapivulnlab.bench;
+
+import edu.nu.owaspapivulnlab.service.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Issuing a token at login, and verifying one on every authenticated request: once through the
+// verified-claims cache (a repeat presentation) and once with the cache disabled (full HS256 parse).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmarks {
+
+    private static final Map<String, Object> CLAIMS = Map.of("role", "USER", "isAdmin", false);
+
+    private JwtService cached;
+    private JwtService uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtService("secret123", 3600, 10_000, 300);
+        uncached = new JwtService("secret123", 3600, 10_000, 0); // entries expire as they are written
+        token = cached.issue("alice", CLAIMS);
+    }
+
+    @Benchmark
+    public String issue() {
+        return cached.issue("alice", CLAIMS);
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return cached.verify(token);
+    }
+
+    @Benchmark
+    public Claims verifyUncached() {
+        return uncached.verify(token);
+    }
+}
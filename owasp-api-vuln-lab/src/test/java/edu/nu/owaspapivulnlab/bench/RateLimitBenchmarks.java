@@ -0,0 +1,94 @@
+package edu.nu.owaspapivulnlab.bench;
+
+import edu.nu.owaspapivulnlab.config.BucketStore;
+import edu.nu.owaspapivulnlab.config.RateLimitProperties;
+import edu.nu.owaspapivulnlab.config.RateLimiter;
+import io.github.bucket4j.ConsumptionProbe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// RateLimiter.tryConsume as the filter calls it: route resolution, bucket lookup in the striped
+// store, and a consume. Four threads share one client's bucket (one hot IP) or each use their own
+// (many clients hashed over the stripes). Capacities are large enough that nothing is rejected.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitBenchmarks {
+
+    // A billion tokens a second: the highest refill rate Bucket4j accepts, far above what is consumed
+    private static final long CAPACITY = 1_000_000_000L;
+    private static final Duration PERIOD = Duration.ofSeconds(1);
+
+    @State(Scope.Benchmark)
+    public static class Limiter {
+        RateLimiter limiter;
+        final AtomicInteger clients = new AtomicInteger();
+
+        @Setup
+        public void setUp() {
+            RateLimitProperties properties = new RateLimitProperties();
+            properties.getDefaultLimit().setCapacity(CAPACITY);
+            properties.getDefaultLimit().setPeriod(PERIOD);
+            RateLimitProperties.Route login = new RateLimitProperties.Route();
+            login.setName("login");
+            login.setPattern("/api/auth/login");
+            login.setMethod("POST");
+            login.setCapacity(CAPACITY);
+            login.setPeriod(PERIOD);
+            RateLimitProperties.Route transfer = new RateLimitProperties.Route();
+            transfer.setName("transfer");
+            transfer.setPattern("/api/accounts/{id}/transfer");
+            transfer.setMethod("POST");
+            transfer.setCapacity(CAPACITY);
+            transfer.setPeriod(PERIOD);
+            properties.setRoutes(List.of(login, transfer));
+            limiter = new RateLimiter(properties, new BucketStore(100_000, 16, Duration.ofMinutes(10)));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Requests {
+        MockHttpServletRequest shared;
+        MockHttpServletRequest own;
+
+        @Setup
+        public void setUp(Limiter limiter) {
+            shared = transfer("10.0.0.1");
+            own = transfer("10.1.0." + limiter.clients.incrementAndGet());
+        }
+
+        private static MockHttpServletRequest transfer(String ip) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/accounts/7/transfer");
+            request.setRemoteAddr(ip);
+            return request;
+        }
+    }
+
+    @Benchmark
+    public ConsumptionProbe sameClient(Limiter limiter, Requests requests) {
+        return limiter.limiter.tryConsume(requests.shared);
+    }
+
+    @Benchmark
+    public ConsumptionProbe distinctClients(Limiter limiter, Requests requests) {
+        return limiter.limiter.tryConsume(requests.own);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.nu.owaspapivulnlab.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.nu.owaspapivulnlab.dto.AppUserDTO;
+import edu.nu.owaspapivulnlab.model.AppUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// Response bodies for one user and for a 100-user page, written as the entity (every column,
+// including the password) and as AppUserDTO (everything but the password).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmarks {
+
+    private ObjectMapper mapper;
+    private AppUser user;
+    private AppUserDTO dto;
+    private List<AppUser> users;
+    private List<AppUserDTO> dtos;
+
+    @Setup
+    public void setUp() {
+        // Configured the way Spring Boot configures the application's mapper
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        users = LongStream.rangeClosed(1, 100).mapToObj(SerializationBenchmarks::user).toList();
+        dtos = users.stream().map(u -> new AppUserDTO(u.getId(), u.getUsername(), u.getEmail(), u.getRole(), u.isAdmin(), 0L)).toList();
+        user = users.get(0);
+        dto = dtos.get(0);
+    }
+
+    private static AppUser user(long id) {
+        return AppUser.builder().id(id).username("user" + id).email("user" + id + "@lab.local")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z6uYwGSHFVhwQbBzXQnpA7Na")
+                .role("USER").isAdmin(false).build();
+    }
+
+    @Benchmark
+    public byte[] entity() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] dto() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public byte[] entityPage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] dtoPage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(dtos);
+    }
+}
@@ -0,0 +1,108 @@
+package edu.nu.owaspapivulnlab.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn -Pload test [-Dloadtest.rate=10 -Dloadtest.seconds=30 -Dloadtest.mix=transfer:6,search:3,list:1]
+// Fails when a scenario's p99 regresses past src/test/resources/loadtest/baseline.properties or more
+// than 1% of arrivals fail. -Dloadtest.record-baseline=true stores this run's p99s as the new baseline.
+// Baselines are machine-specific: record them on the machine that runs the gate.
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        // Measure the request paths, not the limits in front of them
+        "app.ratelimit.enabled=false",
+        "app.password.bcrypt-cost=4",
+        "app.seed.bulk.enabled=true",
+        "app.seed.bulk.users=2000",
+        "app.seed.bulk.accounts-per-user=1"
+})
+class HttpLoadTests {
+
+    private static final Path BASELINE = Path.of("src/test/resources/loadtest/baseline.properties");
+    private static final String[] TERMS = {"khan", "sara", "smith", "ali.", "chen", "emma", "ross", "nguyen"};
+
+    @LocalServerPort int port;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void p99_stays_within_baseline() throws Exception {
+        List<String> usernames = jdbc.queryForList(
+                "select username from app_user where password like '$2%' order by id", String.class);
+        long maxId = jdbc.queryForObject("select max(id) from app_user", Long.class);
+        String base = "http://localhost:" + port;
+
+        LoadGenerator generator = new LoadGenerator(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+                Double.parseDouble(System.getProperty("loadtest.rate", "10")),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10)),
+                Duration.ofSeconds(Long.getLong("loadtest.seconds", 30)),
+                Duration.ofSeconds(30), 42);
+        LoadReport report = generator.run(scenarios(base), random -> Map.of(
+                "username", usernames.get(random.nextInt(usernames.size())),
+                "term", TERMS[random.nextInt(TERMS.length)],
+                "afterId", Long.toString(random.nextLong(maxId))));
+        report.print(System.out);
+
+        LoadBaseline baseline = LoadBaseline.load(BASELINE);
+        if (Boolean.getBoolean("loadtest.record-baseline")) {
+            baseline.record(report, BASELINE);
+            System.out.println("Baseline written to " + BASELINE.toAbsolutePath());
+            return;
+        }
+        assertTrue(report.errorRate() <= 0.01, String.format("%.2f%% of arrivals failed", report.errorRate() * 100));
+        List<String> regressions = baseline.regressions(report);
+        assertTrue(regressions.isEmpty(), String.join("\n", regressions));
+    }
+
+    private List<Scenario> scenarios(String base) {
+        Map<String, Scenario> all = Map.of(
+                "transfer", new Scenario("transfer", 1,
+                        Scenario.Step.of("login", vars -> HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(
+                                        "{\"username\":\"" + vars.get("username") + "\",\"password\":\"seed-password\"}"))
+                                .build(),
+                                (vars, response) -> vars.put("token", om.readTree(response.body()).get("token").asText())),
+                        Scenario.Step.of("mine", vars -> authorized(base + "/api/accounts/mine", vars).GET().build(),
+                                (vars, response) -> vars.put("account", om.readTree(response.body()).get(0).get("id").asText())),
+                        Scenario.Step.of("balance", vars -> authorized(
+                                base + "/api/accounts/" + vars.get("account") + "/balance", vars).GET().build()),
+                        Scenario.Step.of("transfer", vars -> authorized(
+                                base + "/api/accounts/" + vars.get("account") + "/transfer?amount=0.01", vars)
+                                .POST(HttpRequest.BodyPublishers.noBody()).build())),
+                "search", new Scenario("search", 1, Scenario.Step.of("search", vars -> HttpRequest.newBuilder(
+                        URI.create(base + "/api/users/search?q=" + vars.get("term"))).GET().build())),
+                "list", new Scenario("list", 1, Scenario.Step.of("list", vars -> HttpRequest.newBuilder(
+                        URI.create(base + "/api/users?size=50&afterId=" + vars.get("afterId"))).GET().build())));
+
+        List<Scenario> mix = new ArrayList<>();
+        for (String entry : System.getProperty("loadtest.mix", "transfer:6,search:3,list:1").split(",")) {
+            String[] parts = entry.split(":");
+            Scenario scenario = all.get(parts[0].trim());
+            assertNotNull(scenario, "unknown scenario " + parts[0]);
+            mix.add(new Scenario(scenario.name(), Integer.parseInt(parts[1].trim()), scenario.steps()));
+        }
+        return mix;
+    }
+
+    private static HttpRequest.Builder authorized(String uri, Map<String, String> vars) {
+        return HttpRequest.newBuilder(URI.create(uri)).header("Authorization", "Bearer " + vars.get("token"));
+    }
+}
@@ -0,0 +1,71 @@
+package edu.nu.owaspapivulnlab.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+// Stored p99 per scenario. A run regresses when a scenario's p99 exceeds its baseline by more than
+// the tolerance (a fraction) and by more than slack-ms, so a 10 ms baseline does not fail on 25 ms of noise.
+public final class LoadBaseline {
+
+    private final Properties values;
+
+    private LoadBaseline(Properties values) {
+        this.values = values;
+    }
+
+    public static LoadBaseline load(Path file) throws IOException {
+        Properties values = new Properties();
+        if (Files.exists(file)) {
+            try (Reader in = Files.newBufferedReader(file)) {
+                values.load(in);
+            }
+        }
+        return new LoadBaseline(values);
+    }
+
+    public double tolerance() {
+        return Double.parseDouble(values.getProperty("tolerance", "0.25"));
+    }
+
+    public double slackMillis() {
+        return Double.parseDouble(values.getProperty("slack-ms", "20"));
+    }
+
+    // One message per scenario that got slower; scenarios without a stored value are not checked
+    public List<String> regressions(LoadReport report) {
+        List<String> regressions = new ArrayList<>();
+        for (LoadReport.Series series : report.series().values()) {
+            String stored = values.getProperty(series.name() + ".p99-ms");
+            if (stored == null || series.completed() == 0) {
+                continue;
+            }
+            double baseline = Double.parseDouble(stored);
+            double p99 = series.latency().valueAt(0.99) / 1e6;
+            double limit = Math.max(baseline * (1 + tolerance()), baseline + slackMillis());
+            if (p99 > limit) {
+                regressions.add(String.format("%s p99 %.1f ms exceeds %.1f ms (baseline %.1f ms)",
+                        series.name(), p99, limit, baseline));
+            }
+        }
+        return regressions;
+    }
+
+    // Replaces the stored p99s with this run's, keeping tolerance and slack-ms
+    public void record(LoadReport report, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (Writer out = Files.newBufferedWriter(file)) {
+            out.write("# p99 per scenario in milliseconds, written by -Dloadtest.record-baseline=true\n");
+            out.write("tolerance=" + tolerance() + "\n");
+            out.write("slack-ms=" + slackMillis() + "\n");
+            for (LoadReport.Series series : report.series().values()) {
+                out.write(String.format("%s.p99-ms=%.1f%n", series.name(), series.latency().valueAt(0.99) / 1e6));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package edu.nu.owaspapivulnlab.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// Open-loop load: arrivals are scheduled at a constant rate whether or not earlier ones have finished,
+// and each scenario's latency is measured from when it was scheduled to start, not from when it was
+// sent. A stalled server therefore shows up as the queueing delay every user behind the stall would
+// see, instead of as one slow request followed by a quiet gap (coordinated omission).
+public final class LoadGenerator {
+
+    private final HttpClient http;
+    private final double ratePerSecond;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration drainTimeout;
+    private final long seed;
+
+    public LoadGenerator(HttpClient http, double ratePerSecond, Duration warmup, Duration duration,
+                         Duration drainTimeout, long seed) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        this.http = http;
+        this.ratePerSecond = ratePerSecond;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.drainTimeout = drainTimeout;
+        this.seed = seed;
+    }
+
+    // vars gives each arrival its starting variables (e.g. which user it logs in as)
+    public LoadReport run(List<Scenario> scenarios, Function<Random, Map<String, String>> vars)
+            throws InterruptedException {
+        LoadReport report = new LoadReport(scenarios, ratePerSecond, duration);
+        int totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+        Random random = new Random(seed);
+        AtomicLong outstanding = new AtomicLong(1); // the scheduler's own hold until it stops
+        CountDownLatch drained = new CountDownLatch(1);
+
+        long period = Math.round(1e9 / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * period;
+            if (intended >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            boolean measured = intended >= measureFrom;
+            if (measured) {
+                report.scheduled(now - intended);
+            }
+            Scenario scenario = pick(scenarios, random.nextInt(totalWeight));
+            LoadReport.Series series = measured ? report.series(scenario.name()) : null;
+            outstanding.incrementAndGet();
+            step(scenario, 0, new HashMap<>(vars.apply(random)), series).whenComplete((ok, failure) -> {
+                if (series != null) {
+                    if (failure == null) {
+                        series.completed(intended);
+                    } else {
+                        series.failed(failure instanceof CompletionException ? failure.getCause() : failure);
+                    }
+                }
+                if (outstanding.decrementAndGet() == 0) {
+                    drained.countDown();
+                }
+            });
+        }
+        if (outstanding.decrementAndGet() == 0) {
+            drained.countDown();
+        }
+        drained.await(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        report.unfinished(outstanding.get());
+        return report;
+    }
+
+    private CompletableFuture<Void> step(Scenario scenario, int index, Map<String, String> vars,
+                                         LoadReport.Series series) {
+        if (index == scenario.steps().size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Scenario.Step step = scenario.steps().get(index);
+        HttpRequest request;
+        try {
+            request = step.request().apply(vars);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long sent = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenCompose(response -> {
+            if (series != null) {
+                series.step(step.name()).recordSince(sent);
+            }
+            if (response.statusCode() / 100 != 2) {
+                throw new CompletionException(new StepFailure(step.name() + " " + response.statusCode()));
+            }
+            try {
+                step.extract().extract(vars, response);
+            } catch (Exception e) {
+                throw new CompletionException(new StepFailure(step.name() + " unreadable response"));
+            }
+            return step(scenario, index + 1, vars, series);
+        });
+    }
+
+    private static Scenario pick(List<Scenario> scenarios, int ticket) {
+        for (Scenario scenario : scenarios) {
+            ticket -= scenario.weight();
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("weights changed while picking");
+    }
+
+    // A step that got an unexpected status or body; the message is the error key in the report
+    static final class StepFailure extends RuntimeException {
+        StepFailure(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.nu.owaspapivulnlab.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTests {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger missing = new AtomicInteger();
+    private volatile int stallAt = -1;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newSingleThreadExecutor());
+        server.createContext("/", exchange -> {
+            if (requests.incrementAndGet() == stallAt) {
+                sleep(1000);
+            }
+            boolean found = !exchange.getRequestURI().getPath().equals("/missing");
+            if (!found) {
+                missing.incrementAndGet();
+            }
+            exchange.sendResponseHeaders(found ? 200 : 404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void arrivals_follow_the_rate_and_a_stall_delays_everything_scheduled_behind_it() throws Exception {
+        stallAt = 20;
+        LoadReport report = generator(100, 2).run(List.of(scenario("ok", "/")), random -> Map.of());
+
+        assertEquals(200, report.completed(), 5);
+        assertEquals(0, report.failed());
+        // Arrivals scheduled during the one-second stall waited for it; measured from their scheduled
+        // start they are slow even though each was served instantly once the server resumed
+        LoadReport.Series series = report.series().get("ok");
+        assertTrue(series.latency().valueAt(0.9) > 500_000_000L, "p90 " + series.latency().valueAt(0.9));
+    }
+
+    @Test
+    void failures_are_counted_per_step_and_stop_the_flow() throws Exception {
+        LoadReport report = generator(50, 1).run(List.of(
+                new Scenario("broken", 1,
+                        Scenario.Step.of("first", vars -> get("/missing")),
+                        Scenario.Step.of("second", vars -> get("/")))), random -> Map.of());
+
+        assertEquals(0, report.completed());
+        assertEquals(50, report.failed(), 2);
+        // No flow got past its failed first step
+        assertEquals(missing.get(), requests.get());
+        assertEquals(1.0, report.errorRate(), 0.0);
+    }
+
+    @Test
+    void baseline_flags_only_scenarios_past_tolerance_and_slack() throws Exception {
+        Path file = Files.createTempFile("baseline", ".properties");
+        Files.writeString(file, "tolerance=0.5\nslack-ms=5\nfast.p99-ms=1000\nslow.p99-ms=1\n");
+        stallAt = 10;
+        LoadReport report = generator(50, 1).run(List.of(scenario("fast", "/"), scenario("slow", "/")), random -> Map.of());
+
+        List<String> regressions = LoadBaseline.load(file).regressions(report);
+        assertEquals(1, regressions.size(), regressions.toString());
+        assertTrue(regressions.get(0).startsWith("slow p99"));
+    }
+
+    private LoadGenerator generator(double rate, int seconds) {
+        return new LoadGenerator(HttpClient.newHttpClient(), rate, Duration.ZERO, Duration.ofSeconds(seconds),
+                Duration.ofSeconds(10), 1);
+    }
+
+    private Scenario scenario(String name, String path) {
+        return new Scenario(name, 1, Scenario.Step.of(name, vars -> get(path)));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + path)).build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
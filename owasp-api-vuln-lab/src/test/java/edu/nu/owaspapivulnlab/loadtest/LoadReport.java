@@ -0,0 +1,128 @@
+package edu.nu.owaspapivulnlab.loadtest;
+
+import edu.nu.owaspapivulnlab.service.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Results of the measured part of a run: per scenario, end-to-end latency from the scheduled start
+// plus the latency of each of its steps, completions, and failures keyed by step and status.
+public final class LoadReport {
+
+    private final double offeredRate;
+    private final Duration duration;
+    private final Map<String, Series> series = new LinkedHashMap<>();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAccumulator maxLag = new LongAccumulator(Math::max, 0);
+    private volatile long unfinished;
+
+    LoadReport(List<Scenario> scenarios, double offeredRate, Duration duration) {
+        this.offeredRate = offeredRate;
+        this.duration = duration;
+        for (Scenario scenario : scenarios) {
+            series.put(scenario.name(), new Series(scenario.name()));
+        }
+    }
+
+    Series series(String scenario) {
+        return series.get(scenario);
+    }
+
+    void scheduled(long lagNanos) {
+        scheduled.increment();
+        maxLag.accumulate(lagNanos);
+    }
+
+    void unfinished(long count) {
+        unfinished = count;
+    }
+
+    public Map<String, Series> series() {
+        return series;
+    }
+
+    public long completed() {
+        return series.values().stream().mapToLong(s -> s.completed.sum()).sum();
+    }
+
+    public long failed() {
+        return series.values().stream().mapToLong(s -> s.failed.sum()).sum() + unfinished;
+    }
+
+    // Failed or unfinished arrivals as a share of those scheduled in the measured window
+    public double errorRate() {
+        long total = scheduled.sum();
+        return total == 0 ? 0 : (double) failed() / total;
+    }
+
+    public double throughput() {
+        return completed() / (duration.toNanos() / 1e9);
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%nOffered %.1f/s for %d s: %d scheduled, %d completed (%.1f/s), %d failed, %d unfinished, "
+                        + "max schedule lag %.1f ms%n", offeredRate, duration.toSeconds(), scheduled.sum(), completed(),
+                throughput(), failed() - unfinished, unfinished, maxLag.get() / 1e6);
+        out.printf("%-22s %8s %8s %9s %9s %9s %9s %9s%n",
+                "scenario / step", "count", "errors", "mean", "p50", "p99", "p99.9", "max");
+        for (Series s : series.values()) {
+            row(out, s.name, s.latency.snapshot(), s.failed.sum());
+            s.steps.forEach((step, histogram) -> row(out, "  " + step, histogram.snapshot(), -1));
+            s.errors.forEach((reason, count) -> out.printf("  ! %-18s %8d%n", reason, count.sum()));
+        }
+    }
+
+    private static void row(PrintStream out, String name, LatencyHistogram.Snapshot snapshot, long errors) {
+        out.printf("%-22s %8d %8s %7.1fms %7.1fms %7.1fms %7.1fms %7.1fms%n", name, snapshot.count(),
+                errors < 0 ? "" : Long.toString(errors), snapshot.meanNanos() / 1e6, snapshot.valueAt(0.5) / 1e6,
+                snapshot.valueAt(0.99) / 1e6, snapshot.valueAt(0.999) / 1e6, snapshot.maxNanos() / 1e6);
+    }
+
+    public static final class Series {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final ConcurrentMap<String, LatencyHistogram> steps = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        Series(String name) {
+            this.name = name;
+        }
+
+        LatencyHistogram step(String step) {
+            return steps.computeIfAbsent(step, s -> new LatencyHistogram());
+        }
+
+        void completed(long intendedStart) {
+            latency.recordSince(intendedStart);
+            completed.increment();
+        }
+
+        void failed(Throwable cause) {
+            failed.increment();
+            String reason = cause instanceof LoadGenerator.StepFailure ? cause.getMessage() : cause.getClass().getSimpleName();
+            errors.computeIfAbsent(reason, r -> new LongAdder()).increment();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public LatencyHistogram.Snapshot latency() {
+            return latency.snapshot();
+        }
+
+        public long completed() {
+            return completed.sum();
+        }
+    }
+}
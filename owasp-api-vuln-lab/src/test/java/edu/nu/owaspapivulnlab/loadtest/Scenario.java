@@ -0,0 +1,32 @@
+package edu.nu.owaspapivulnlab.loadtest;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// A named sequence of requests run as one arrival. Each step builds its request from what earlier
+// steps stored in the flow's variables (a token, an account id) and may store more from its response.
+public record Scenario(String name, int weight, List<Step> steps) {
+
+    public Scenario(String name, int weight, Step... steps) {
+        this(name, weight, List.of(steps));
+    }
+
+    public record Step(String name, Function<Map<String, String>, HttpRequest> request, Extractor extract) {
+
+        public static Step of(String name, Function<Map<String, String>, HttpRequest> request) {
+            return new Step(name, request, (vars, response) -> { });
+        }
+
+        public static Step of(String name, Function<Map<String, String>, HttpRequest> request, Extractor extract) {
+            return new Step(name, request, extract);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Extractor {
+        void extract(Map<String, String> vars, HttpResponse<String> response) throws Exception;
+    }
+}